@@ -0,0 +1,148 @@
+package com.bitcoinz.btcztest;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonStringCache;
+import com.eclipsesource.json.JsonValue;
+
+/**
+ * Measures the heap retained by and allocated for parsing a synthetic listtransactions response,
+ * with and without a JsonStringCache.
+ * Usage: JsonStringCacheBenchmark [entries]
+ */
+public class JsonStringCacheBenchmark
+{
+	private static final String HEX = "0123456789abcdef";
+
+	// Keeps the parsed response alive while the heap is measured
+	private static JsonValue parsed;
+
+
+	public static void main(String[] args)
+		throws Exception
+	{
+		int entries = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		byte[] response = createListTransactions(entries);
+		System.out.println("listtransactions response: " + entries + " entries, " +
+		                   (response.length / 1024) + " KB");
+
+		for (int round = 0; round < 2; round++) // First round is a warm up
+		{
+			measure(round, "No cache", null, response);
+			measure(round, "JsonStringCache(4096, 40)", new JsonStringCache(4096, 40), response);
+		}
+	}
+
+
+	private static void measure(int round, String name, JsonStringCache cache, byte[] response)
+		throws InterruptedException
+	{
+		com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long threadID = Thread.currentThread().getId();
+
+		Json.setStringCache(cache);
+		parsed = null;
+		long usedBefore = usedHeapAfterGC();
+
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadID);
+		long start = System.nanoTime();
+		parsed = Json.parse(response);
+		long nanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadID) - allocatedBefore;
+
+		long retained = usedHeapAfterGC() - usedBefore;
+		if (round > 0)
+		{
+			System.out.println(name + ": retained " + (retained / 1024) + " KB, allocated " +
+			                   (allocated / 1024) + " KB, parsed in " + (nanos / 1000000) + " ms");
+		}
+
+		parsed = null;
+		Json.setStringCache(null);
+	}
+
+
+	private static long usedHeapAfterGC()
+		throws InterruptedException
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+		{
+			System.gc();
+			Thread.sleep(100);
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+
+	// Similar to bitcoinz-cli listtransactions "" N - addresses and blocks repeat, txids do not
+	private static byte[] createListTransactions(int entries)
+	{
+		Random random = new Random(1);
+		String[] addresses = new String[200];
+		for (int i = 0; i < addresses.length; i++)
+		{
+			addresses[i] = "t1" + randomString(random, "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz", 33);
+		}
+		String[] categories = { "receive", "send", "generate", "immature" };
+
+		StringBuilder json = new StringBuilder(entries * 600);
+		json.append("[\n");
+		long blockTime = 1500000000L;
+		String blockHash = null;
+		for (int i = 0; i < entries; i++)
+		{
+			if ((i % 3) == 0)
+			{
+				blockHash = randomString(random, HEX, 64);
+				blockTime += 150;
+			}
+			String category = categories[random.nextInt(categories.length)];
+
+			json.append((i > 0) ? ",\n" : "").append("  {\n");
+			json.append("    \"account\": \"\",\n");
+			json.append("    \"address\": \"").append(addresses[random.nextInt(addresses.length)]).append("\",\n");
+			json.append("    \"category\": \"").append(category).append("\",\n");
+			json.append("    \"amount\": ").append(category.equals("send") ? "-" : "").
+			     append(random.nextInt(1000)).append('.').append(random.nextInt(10)).append("0000000,\n");
+			json.append("    \"vout\": ").append(random.nextInt(3)).append(",\n");
+			if (category.equals("send"))
+			{
+				json.append("    \"fee\": -0.00010000,\n");
+			}
+			json.append("    \"confirmations\": ").append(entries - i).append(",\n");
+			json.append("    \"blockhash\": \"").append(blockHash).append("\",\n");
+			json.append("    \"blockindex\": ").append(random.nextInt(20)).append(",\n");
+			json.append("    \"blocktime\": ").append(blockTime).append(",\n");
+			json.append("    \"expiryheight\": 0,\n");
+			json.append("    \"txid\": \"").append(randomString(random, HEX, 64)).append("\",\n");
+			json.append("    \"walletconflicts\": [\n    ],\n");
+			json.append("    \"time\": ").append(blockTime - 10).append(",\n");
+			json.append("    \"timereceived\": ").append(blockTime - 10).append(",\n");
+			json.append("    \"vjoinsplit\": [\n    ],\n");
+			json.append("    \"size\": ").append(200 + random.nextInt(2000)).append("\n");
+			json.append("  }");
+		}
+		json.append("\n]\n");
+
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+
+	private static String randomString(Random random, String alphabet, int length)
+	{
+		StringBuilder string = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+		{
+			string.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+
+		return string.toString();
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.bitcoinz.btcztest;
+
+import java.lang.management.ManagementFactory;
+
+import com.bitcoinz.btczui.Log;
+
+/**
+ * Measures time and heap allocation per call for log message formatting - the former replace
+ * based formatting, the single pass formatting and a call below the minimum log level.
+ * Usage: LogFormatBenchmark [iterations]
+ */
+public class LogFormatBenchmark
+{
+	private static final String MESSAGE = "Transaction {0} sent from {1} to {2}, amount: {3}";
+
+	private static final Object[] ARGS =
+	{
+		"6f1a4c7d3b2e9f8a0c5d4e3f2a1b0c9d8e7f6a5b4c3d2e1f0a9b8c7d6e5f4a3b",
+		"t1ZKyuqsoPkP4fq8bS8sGaGrkd5DquJ1URx",
+		"zs1x2q7dpkyr5k3axnq9w3sm8ha9v0mkc7cn0jr6fqpdl8ft8lfeadgvxrnpk3m0p0t3tmy75vrx3g",
+		"12.34560000"
+	};
+
+	// Keeps the results alive so the formatting is not optimized away
+	private static volatile long sink;
+
+
+	public static void main(String[] args)
+		throws Exception
+	{
+		int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+
+		com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long threadID = Thread.currentThread().getId();
+
+		for (int round = 0; round < 2; round++) // First round is a warm up
+		{
+			long bytes = threads.getThreadAllocatedBytes(threadID);
+			long start = System.nanoTime();
+			long length = 0;
+			for (int i = 0; i < iterations; i++)
+			{
+				length += replaceFormat(MESSAGE, ARGS).length();
+			}
+			report(round, "Replace based format", iterations, System.nanoTime() - start,
+			       threads.getThreadAllocatedBytes(threadID) - bytes);
+			sink = length;
+
+			bytes = threads.getThreadAllocatedBytes(threadID);
+			start = System.nanoTime();
+			length = 0;
+			for (int i = 0; i < iterations; i++)
+			{
+				length += Log.format(MESSAGE, ARGS).length();
+			}
+			report(round, "Single pass format", iterations, System.nanoTime() - start,
+			       threads.getThreadAllocatedBytes(threadID) - bytes);
+			sink = length;
+
+			Log.setLevel(Log.LEVEL.INFO);
+			bytes = threads.getThreadAllocatedBytes(threadID);
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++)
+			{
+				Log.debug(MESSAGE, ARGS);
+			}
+			report(round, "Filtered debug call", iterations, System.nanoTime() - start,
+			       threads.getThreadAllocatedBytes(threadID) - bytes);
+			Log.setLevel(Log.LEVEL.TRACE);
+		}
+
+		Log.shutdown();
+	}
+
+
+	// Formatting as it was done before Log.format()
+	private static String replaceFormat(String message, Object ... args)
+	{
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i] != null)
+			{
+				message = message.replace("{" + i  + "}", args[i].toString());
+			}
+		}
+		message += " ";
+
+		return message;
+	}
+
+
+	private static void report(int round, String name, int iterations, long nanos, long bytes)
+	{
+		if (round > 0)
+		{
+			System.out.println(name + ": " + (nanos / iterations) + " ns/call, " +
+			                   (bytes / iterations) + " bytes/call");
+		}
+	}
+
+}
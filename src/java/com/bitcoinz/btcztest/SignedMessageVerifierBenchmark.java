@@ -0,0 +1,160 @@
+package com.bitcoinz.btcztest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.bitcoinz.btczui.BTCZClientCaller;
+import com.bitcoinz.btczui.OSUtil;
+import com.bitcoinz.btczui.RIPEMD160;
+import com.bitcoinz.btczui.SignedMessageVerifier;
+import com.bitcoinz.btczui.Util;
+
+/**
+ * Checks the in-process signed message verification and RIPEMD-160 against known answers, then
+ * compares the throughput of the verification with verifymessage calls to a running daemon.
+ * Any mismatch in the checks fails with an exception.
+ *
+ * Usage: SignedMessageVerifierBenchmark [address signature message [iterations]]
+ */
+public class SignedMessageVerifierBenchmark
+{
+	private static final String LONG_MESSAGE = "Gr\u00FC\u00DFe - " + new String(new char[300]).replace('\0', 'x');
+
+	// Address, signature and message - signed independently of the wallet code
+	private static final String[][] SIGNED_MESSAGES =
+	{
+		// Compressed public key
+		{ "t1apEUk7fxtmwGmevKzMiYNaEyS3wUfUxRS",
+		  "IPPrniEfzr0Hg30PhC/W6ECWDV1C5Ir8ChSndLK6MIeWfPyRV6Q/DvUkudfAGhn6uip/uopVbvWa26KwAF9Ezuk=",
+		  "Hello BitcoinZ" },
+		// Uncompressed public key
+		{ "t1PmsaKCS8xW1YYR2KjtohPVz6boeA1Qkpu",
+		  "HOnJB8aL/bvbFytOXUTdtHh/4dl+3ucJq9ya4rQ6hVqzGWCVLLs47pAnqzQI5ISWNp8VSG4NdGRo4Sho4JgzA1Y=",
+		  "Hello BitcoinZ" },
+		// UTF-8 message longer than 252 bytes - three byte length prefix
+		{ "t1ac3mJY91GL5fDWhzNwhaj1h7t844T9rhy",
+		  "H2ph6hwxQCoKAPG/BbTKd19jdT0R/g8IJKqJonncYOTsXeQF/pJNXmUq6evJJb3dORA7BzxcG2r/CQahSGQwnEU=",
+		  LONG_MESSAGE }
+	};
+
+	// Input and digest - the test vectors of the RIPEMD-160 authors
+	private static final String[][] RIPEMD160_VECTORS =
+	{
+		{ "", "9c1185a5c5e9fc54612808977ee8f548b2258d31" },
+		{ "a", "0bdc9d2d256b3ee9daae347be6f4dc835a467ffe" },
+		{ "abc", "8eb208f7e05d987a9b044a8e98c6b087f15a0bfc" },
+		{ "message digest", "5d0689ef49d2fae572b881b123a85ffa21595f36" },
+		{ "abcdefghijklmnopqrstuvwxyz", "f71c27109c692c1b56bbdceb5b9d2865b3708dbc" },
+		{ "abcdbcdecdefdefgefghfghighijhijkijkljklmklmnlmnomnopnopq", "12a053384a9c0c88e405a06c27dcf49ada62eb2b" },
+		{ "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789", "b0e20b6e3116640286ed3a87a5713079b21f5189" },
+		{ new String(new char[8]).replace("\0", "1234567890"), "9b752e45573d4b39f4dbd3323cab82bf63326bfb" },
+		{ new String(new char[1000000]).replace('\0', 'a'), "52783243c1697bdbe16d37f97f68f08325dc1528" }
+	};
+
+
+	public static void main(String[] args)
+		throws Exception
+	{
+		checkKnownAnswers();
+		if (args.length < 3)
+		{
+			return;
+		}
+
+		String address   = args[0];
+		String signature = args[1];
+		String message   = args[2];
+		int iterations   = (args.length > 3) ? Integer.parseInt(args[3]) : 200;
+
+		// Warm up the local verifier
+		for (int i = 0; i < 100; i++)
+		{
+			SignedMessageVerifier.verifyMessage(address, signature, message);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			if (!SignedMessageVerifier.verifyMessage(address, signature, message))
+			{
+				throw new IllegalStateException("Local verification failed!");
+			}
+		}
+		report("Local", iterations, System.nanoTime() - start);
+
+		BTCZClientCaller caller = new BTCZClientCaller(OSUtil.getProgramDirectory());
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			if (!caller.verifyMessage(address, signature, message))
+			{
+				throw new IllegalStateException("verifymessage failed!");
+			}
+		}
+		report("verifymessage", iterations, System.nanoTime() - start);
+	}
+
+
+	private static void checkKnownAnswers()
+	{
+		for (String[] vector : RIPEMD160_VECTORS)
+		{
+			String digest = Util.encodeHexArray(RIPEMD160.digest(vector[0].getBytes(StandardCharsets.US_ASCII)));
+			if (!digest.equalsIgnoreCase(vector[1]))
+			{
+				throw new IllegalStateException("RIPEMD-160 of a " + vector[0].length() + " character input is " +
+				                                digest + " instead of " + vector[1] + "!");
+			}
+		}
+
+		for (String[] signed : SIGNED_MESSAGES)
+		{
+			check(true, signed[0], signed[1], signed[2], "valid signature");
+			check(false, signed[0], signed[1], signed[2] + "!", "changed message");
+			check(false, signed[0], tamper(signed[1], 40), signed[2], "changed signature");
+			// The other key format gives another address
+			check(false, signed[0], tamper(signed[1], 0), signed[2], "changed key format");
+		}
+
+		// Signature of one key with the address of another
+		check(false, SIGNED_MESSAGES[1][0], SIGNED_MESSAGES[0][1], SIGNED_MESSAGES[0][2], "changed address");
+		check(false, "not an address", SIGNED_MESSAGES[0][1], SIGNED_MESSAGES[0][2], "malformed address");
+		check(false, SIGNED_MESSAGES[0][0], "bm90IGEgc2lnbmF0dXJl", SIGNED_MESSAGES[0][2], "malformed signature");
+
+		System.out.println("Known answer checks passed");
+	}
+
+
+	private static void check(boolean expected, String address, String signature, String message, String name)
+	{
+		if (SignedMessageVerifier.verifyMessage(address, signature, message) != expected)
+		{
+			throw new IllegalStateException("Verification of " + name + " for " + address +
+			                                " is not " + expected + "!");
+		}
+	}
+
+
+	// Changes one byte of a Base64 signature - byte 0 is the header, 27-30 for an uncompressed
+	// and 31-34 for a compressed public key, which is switched to the other format
+	private static String tamper(String signature, int index)
+	{
+		byte[] sig = Base64.getDecoder().decode(signature);
+		if (index == 0)
+		{
+			sig[0] += ((sig[0] & 0xff) >= 31) ? -4 : 4;
+		} else
+		{
+			sig[index] ^= 1;
+		}
+		return Base64.getEncoder().encodeToString(sig);
+	}
+
+
+	private static void report(String name, int iterations, long nanos)
+	{
+		System.out.println(name + ": " + iterations + " verifications in " + (nanos / 1000000) + " ms, " +
+		                   (long)(iterations * 1e9 / nanos) + " per second");
+	}
+
+}
@@ -0,0 +1,350 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bitcoinj.core.Base58;
+
+
+/**
+ * Decodes and validates BitcoinZ addresses in process - Base58Check T addresses and Sprout Z
+ * addresses, and bech32 Sapling Z addresses. Network and address type are identified from the
+ * version bytes or human readable part. Whether an address belongs to the wallet can still
+ * only be answered by the daemon.
+ */
+public class AddressCodec
+{
+	public static enum NETWORK_TYPE
+	{
+		MAINNET, TESTNET
+	};
+
+	public static enum ADDRESS_TYPE
+	{
+		T_PUBKEY_HASH, T_SCRIPT_HASH, Z_SPROUT, Z_SAPLING
+	};
+
+
+	/**
+	 * Result of decoding an address.
+	 */
+	public static class AddressInfo
+	{
+		private NETWORK_TYPE network;
+		private ADDRESS_TYPE type;
+		private byte[]       payload;
+
+		private AddressInfo(NETWORK_TYPE network, ADDRESS_TYPE type, byte[] payload)
+		{
+			this.network = network;
+			this.type    = type;
+			this.payload = payload;
+		}
+
+		public NETWORK_TYPE getNetwork()
+		{
+			return this.network;
+		}
+
+		public ADDRESS_TYPE getType()
+		{
+			return this.type;
+		}
+
+		public boolean isZAddress()
+		{
+			return (this.type == ADDRESS_TYPE.Z_SPROUT) || (this.type == ADDRESS_TYPE.Z_SAPLING);
+		}
+
+		/**
+		 * @return the address content without version bytes and checksum - e.g. the 20 byte
+		 *         public key hash of a T address.
+		 */
+		public byte[] getPayload()
+		{
+			return this.payload.clone();
+		}
+	}
+
+
+	// Base58Check version bytes - the same as Zcash
+	private static final Object[][] BASE58_PREFIXES =
+	{
+		{ new byte[] { (byte)0x1C, (byte)0xB8 }, NETWORK_TYPE.MAINNET, ADDRESS_TYPE.T_PUBKEY_HASH, 20 },
+		{ new byte[] { (byte)0x1C, (byte)0xBD }, NETWORK_TYPE.MAINNET, ADDRESS_TYPE.T_SCRIPT_HASH, 20 },
+		{ new byte[] { (byte)0x16, (byte)0x9A }, NETWORK_TYPE.MAINNET, ADDRESS_TYPE.Z_SPROUT,      64 },
+		{ new byte[] { (byte)0x1D, (byte)0x25 }, NETWORK_TYPE.TESTNET, ADDRESS_TYPE.T_PUBKEY_HASH, 20 },
+		{ new byte[] { (byte)0x1C, (byte)0xBA }, NETWORK_TYPE.TESTNET, ADDRESS_TYPE.T_SCRIPT_HASH, 20 },
+		{ new byte[] { (byte)0x16, (byte)0xB6 }, NETWORK_TYPE.TESTNET, ADDRESS_TYPE.Z_SPROUT,      64 }
+	};
+
+	// Sapling bech32 human readable parts
+	private static final String SAPLING_MAINNET_HRP = "zs";
+	private static final String SAPLING_TESTNET_HRP = "ztestsapling";
+
+	// Diversifier (11 bytes) and pk_d (32 bytes)
+	private static final int SAPLING_PAYLOAD_LENGTH = 43;
+
+	private static final String BECH32_CHARSET = "qpzry9x8gf2tvdw0s3jn54khce6mua7l";
+
+	// Maximum number of decoding results remembered
+	private static final int CACHE_SIZE = 2000;
+
+	// Invalid addresses are cached too - as this marker
+	private static final AddressInfo INVALID = new AddressInfo(null, null, new byte[0]);
+
+	private static Map<String, AddressInfo> cache = new LinkedHashMap<String, AddressInfo>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, AddressInfo> eldest)
+		{
+			return this.size() > CACHE_SIZE;
+		}
+	};
+
+
+	/**
+	 * Decodes an address and checks its checksum.
+	 *
+	 * @param address the address to decode.
+	 *
+	 * @return the address information or null if the address is not a valid BitcoinZ address.
+	 */
+	public static AddressInfo decode(String address)
+	{
+		if (address == null)
+		{
+			return null;
+		}
+
+		AddressInfo info;
+		synchronized (cache)
+		{
+			info = cache.get(address);
+		}
+
+		if (info == null)
+		{
+			String lower = address.toLowerCase(Locale.ROOT);
+			info = (lower.startsWith(SAPLING_MAINNET_HRP + "1") || lower.startsWith(SAPLING_TESTNET_HRP + "1")) ?
+				decodeBech32(address) : decodeBase58Check(address);
+			if (info == null)
+			{
+				info = INVALID;
+			}
+
+			synchronized (cache)
+			{
+				cache.put(address, info);
+			}
+		}
+
+		return (info != INVALID) ? info : null;
+	}
+
+
+	/**
+	 * @param address the address to check.
+	 *
+	 * @return true if the address is a valid BitcoinZ address for any network.
+	 */
+	public static boolean isValid(String address)
+	{
+		return decode(address) != null;
+	}
+
+
+	/**
+	 * @param address the address to check.
+	 * @param testnet true if the address must be a testnet one.
+	 *
+	 * @return true if the address is a valid BitcoinZ address for the network given.
+	 */
+	public static boolean isValidForNetwork(String address, boolean testnet)
+	{
+		AddressInfo info = decode(address);
+		return (info != null) &&
+			   (info.getNetwork() == (testnet ? NETWORK_TYPE.TESTNET : NETWORK_TYPE.MAINNET));
+	}
+
+
+	private static AddressInfo decodeBase58Check(String address)
+	{
+		byte[] decoded;
+		try
+		{
+			decoded = Base58.decode(address);
+		} catch (Exception e)
+		{
+			return null;
+		}
+
+		if (decoded.length < 6)
+		{
+			return null;
+		}
+
+		int dataLength = decoded.length - 4;
+		byte[] checksum = sha256(sha256(Arrays.copyOfRange(decoded, 0, dataLength)));
+		if (!Arrays.equals(Arrays.copyOfRange(checksum, 0, 4), Arrays.copyOfRange(decoded, dataLength, decoded.length)))
+		{
+			return null;
+		}
+
+		for (Object[] prefix : BASE58_PREFIXES)
+		{
+			byte[] versionBytes = (byte[])prefix[0];
+			if ((decoded[0] == versionBytes[0]) && (decoded[1] == versionBytes[1]) &&
+				(dataLength - 2 == ((Integer)prefix[3]).intValue()))
+			{
+				return new AddressInfo(
+					(NETWORK_TYPE)prefix[1], (ADDRESS_TYPE)prefix[2], Arrays.copyOfRange(decoded, 2, dataLength));
+			}
+		}
+
+		return null;
+	}
+
+
+	private static AddressInfo decodeBech32(String address)
+	{
+		// Mixed case is not allowed
+		String lower = address.toLowerCase(Locale.ROOT);
+		if ((!address.equals(lower)) && (!address.equals(address.toUpperCase(Locale.ROOT))))
+		{
+			return null;
+		}
+
+		int separator = lower.lastIndexOf('1');
+		if ((separator < 1) || (separator + 7 > lower.length()))
+		{
+			return null;
+		}
+
+		String hrp = lower.substring(0, separator);
+		NETWORK_TYPE network;
+		if (hrp.equals(SAPLING_MAINNET_HRP))
+		{
+			network = NETWORK_TYPE.MAINNET;
+		} else if (hrp.equals(SAPLING_TESTNET_HRP))
+		{
+			network = NETWORK_TYPE.TESTNET;
+		} else
+		{
+			return null;
+		}
+
+		int[] values = new int[lower.length() - separator - 1];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = BECH32_CHARSET.indexOf(lower.charAt(separator + 1 + i));
+			if (values[i] < 0)
+			{
+				return null;
+			}
+		}
+
+		// Checksum over the expanded HRP and the data including the 6 checksum characters
+		int chk = 1;
+		for (int i = 0; i < hrp.length(); i++)
+		{
+			chk = bech32PolymodStep(chk, hrp.charAt(i) >> 5);
+		}
+		chk = bech32PolymodStep(chk, 0);
+		for (int i = 0; i < hrp.length(); i++)
+		{
+			chk = bech32PolymodStep(chk, hrp.charAt(i) & 0x1f);
+		}
+		for (int value : values)
+		{
+			chk = bech32PolymodStep(chk, value);
+		}
+		if (chk != 1)
+		{
+			return null;
+		}
+
+		// Regroup the 5 bit values without the checksum to bytes - no padding is allowed
+		byte[] payload = new byte[(values.length - 6) * 5 / 8];
+		int acc = 0, bits = 0, count = 0;
+		for (int i = 0; i < values.length - 6; i++)
+		{
+			acc = (acc << 5) | values[i];
+			bits += 5;
+			if (bits >= 8)
+			{
+				bits -= 8;
+				payload[count++] = (byte)(acc >>> bits);
+			}
+		}
+
+		if ((bits >= 5) || (((acc << (8 - bits)) & 0xff) != 0) || (count != SAPLING_PAYLOAD_LENGTH))
+		{
+			return null;
+		}
+
+		return new AddressInfo(network, ADDRESS_TYPE.Z_SAPLING, payload);
+	}
+
+
+	private static int bech32PolymodStep(int chk, int value)
+	{
+		final int[] generator = { 0x3b6a57b2, 0x26508e6d, 0x1ea119fa, 0x3d4233dd, 0x2a1462b3 };
+
+		int top = chk >>> 25;
+		chk = ((chk & 0x1ffffff) << 5) ^ value;
+		for (int i = 0; i < 5; i++)
+		{
+			if (((top >>> i) & 1) != 0)
+			{
+				chk ^= generator[i];
+			}
+		}
+
+		return chk;
+	}
+
+
+	private static byte[] sha256(byte[] input)
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256").digest(input);
+		} catch (NoSuchAlgorithmException impossible)
+		{
+			throw new RuntimeException(impossible);
+		}
+	}
+}
@@ -0,0 +1,244 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.bitcoinz.btczui.BTCZClientCaller.WalletCallException;
+
+
+/**
+ * Runs the same wallet call for a number of addresses in parallel, with a cap on the number
+ * of concurrent calls and a timeout for every single call. Results are returned in the order
+ * of the addresses, no matter in which order the calls complete.
+ *
+ * The defaults may be changed with the system properties bitcoinz.rpc.parallelism and
+ * bitcoinz.rpc.timeout (seconds).
+ */
+public class AddressFanOutExecutor
+{
+	/**
+	 * A call made for a single address.
+	 *
+	 * @param <T> the type of result.
+	 */
+	public static interface AddressCall<T>
+	{
+		T call(String address)
+			throws WalletCallException, IOException, InterruptedException;
+	}
+
+
+	// The worker running a call - so a call that hangs in a bitcoinz-cli process can be stopped
+	private static class RunningCall
+	{
+		volatile long startTime = 0;
+		private Thread worker = null;
+
+		synchronized void started()
+		{
+			this.startTime = System.currentTimeMillis();
+			this.worker = Thread.currentThread();
+		}
+
+		synchronized void finished()
+		{
+			this.worker = null;
+		}
+
+		// The worker may not be left blocked in a process that does not end
+		synchronized void stop()
+		{
+			if (this.worker != null)
+			{
+				CommandExecutor.destroyProcessReadBy(this.worker);
+			}
+		}
+	}
+
+
+	// How often a waiting caller checks the timeouts of running calls
+	private static final long TIMEOUT_CHECK_INTERVAL = 200;
+
+	private String name;
+	private long timeoutMillis;
+	private ThreadPoolExecutor workers;
+
+
+	public AddressFanOutExecutor(String name)
+	{
+		this(name, Integer.getInteger("bitcoinz.rpc.parallelism", 4),
+		     Integer.getInteger("bitcoinz.rpc.timeout", 120) * 1000L);
+	}
+
+
+	/**
+	 * Creates a new executor.
+	 *
+	 * @param name used to name the worker threads.
+	 * @param parallelism maximum number of calls running at the same time.
+	 * @param timeoutMillis maximum time for a single call after it has started.
+	 */
+	public AddressFanOutExecutor(final String name, int parallelism, long timeoutMillis)
+	{
+		this.name = name;
+		this.timeoutMillis = timeoutMillis;
+
+		final AtomicInteger threadCounter = new AtomicInteger(0);
+		parallelism = Math.max(1, parallelism);
+		this.workers = new ThreadPoolExecutor(
+			parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, name + "-" + threadCounter.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		// Idle workers do not stay around between gathering cycles
+		this.workers.allowCoreThreadTimeOut(true);
+	}
+
+
+	/**
+	 * Runs a call for all addresses and waits for the results.
+	 *
+	 * @param addresses the addresses to run the call for.
+	 * @param call the call to run.
+	 *
+	 * @return the results of the calls in the order of the addresses.
+	 *
+	 * @throws WalletCallException if a call fails or times out - remaining calls are cancelled.
+	 */
+	public <T> List<T> execute(List<String> addresses, final AddressCall<T> call)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		final List<RunningCall> runningCalls = new ArrayList<RunningCall>();
+		final List<Future<T>> futures = new ArrayList<Future<T>>();
+
+		for (final String address : addresses)
+		{
+			final RunningCall runningCall = new RunningCall();
+			runningCalls.add(runningCall);
+			futures.add(this.workers.submit(new Callable<T>()
+			{
+				@Override
+				public T call()
+					throws Exception
+				{
+					runningCall.started();
+					try
+					{
+						return call.call(address);
+					} finally
+					{
+						runningCall.finished();
+					}
+				}
+			}));
+		}
+
+		List<T> results = new ArrayList<T>();
+		try
+		{
+			for (int i = 0; i < futures.size(); i++)
+			{
+				results.add(this.waitForResult(addresses.get(i), futures.get(i), runningCalls.get(i)));
+			}
+		} finally
+		{
+			// Only has an effect if we are leaving due to an error or a timeout
+			for (int i = 0; i < futures.size(); i++)
+			{
+				futures.get(i).cancel(true);
+				runningCalls.get(i).stop();
+			}
+		}
+
+		return results;
+	}
+
+
+	public void shutdown()
+	{
+		this.workers.shutdownNow();
+	}
+
+
+	private <T> T waitForResult(String address, Future<T> future, RunningCall runningCall)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		while (true)
+		{
+			try
+			{
+				return future.get(TIMEOUT_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException te)
+			{
+				long started = runningCall.startTime;
+				if ((started > 0) && ((System.currentTimeMillis() - started) > this.timeoutMillis))
+				{
+					throw new WalletCallException(
+						this.name + ": call for address " + address + " did not complete in " +
+						this.timeoutMillis + " ms!");
+				}
+			} catch (ExecutionException ee)
+			{
+				Throwable cause = ee.getCause();
+				if (cause instanceof WalletCallException)
+				{
+					throw (WalletCallException)cause;
+				} else if (cause instanceof IOException)
+				{
+					throw (IOException)cause;
+				} else if (cause instanceof InterruptedException)
+				{
+					throw (InterruptedException)cause;
+				} else
+				{
+					throw new WalletCallException(this.name + ": call for address " + address + " failed!", cause);
+				}
+			}
+		}
+	}
+}
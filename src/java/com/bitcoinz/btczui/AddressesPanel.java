@@ -78,12 +78,17 @@ public class AddressesPanel
 
 	private long lastInteractiveRefresh;
 
+	// Shown until the live data replaces it
+	private JLabel staleDataLabel = null;
+	private boolean dataIsStale = false;
+
 	// Table of validated addresses with their validation result. An invalid or watch-only address should not be shown
 	// and should be remembered as invalid here
 	private Map<String, Boolean> validationMap = new HashMap<String, Boolean>();
 
 
-	public AddressesPanel(JFrame parentFrame, BTCZClientCaller clientCaller, StatusUpdateErrorReporter errorReporter)
+	public AddressesPanel(JFrame parentFrame, BTCZClientCaller clientCaller, StatusUpdateErrorReporter errorReporter,
+			              WalletSnapshot snapshot)
 		throws IOException, InterruptedException, WalletCallException
 	{
 		this.parentFrame = parentFrame;
@@ -112,8 +117,17 @@ public class AddressesPanel
 
 		addressesPanel.add(buttonPanel, BorderLayout.SOUTH);
 
-		// Table of addresses
-		lastAddressBalanceData = getAddressBalanceDataFromWallet();
+		// Table of addresses - the one of the snapshot if available, the live one takes time
+		if ((snapshot != null) && (snapshot.addressBalances != null))
+		{
+			this.dataIsStale = true;
+			// Let the first live data replace it at once
+			this.lastInteractiveRefresh = 0;
+			lastAddressBalanceData = snapshot.addressBalances;
+		} else
+		{
+			lastAddressBalanceData = getAddressBalanceDataFromWallet();
+		}
 		addressesPanel.add(addressBalanceTablePane = new JScrollPane(
 				               addressBalanceTable = this.createAddressBalanceTable(lastAddressBalanceData)),
 				           BorderLayout.CENTER);
@@ -129,6 +143,14 @@ public class AddressesPanel
 				"The average confirmation time is 2.5 min." +
 			    "</span>");
 		warningPanel.add(warningL, BorderLayout.NORTH);
+		if (this.dataIsStale)
+		{
+			staleDataLabel = new JLabel(
+				"<html><span style=\"font-size:0.8em;color:gray;\">" +
+				"Last known balances (" + snapshot.describeAddresses() + ") are shown - updating..." +
+				"</span>");
+			warningPanel.add(staleDataLabel, BorderLayout.SOUTH);
+		}
 		addressesPanel.add(warningPanel, BorderLayout.NORTH);
 
 		// Thread and timer to update the address/balance table
@@ -146,7 +168,7 @@ public class AddressesPanel
 				    return data;
 				}
 			},
-			this.errorReporter, 25000);
+			this.errorReporter, 25000, this.dataIsStale);
 		this.threads.add(this.balanceGatheringThread);
 
 		ActionListener alBalances = new ActionListener()
@@ -302,6 +324,8 @@ public class AddressesPanel
 			this.validate();
 			this.repaint();
 		}
+
+		this.markDataAsLive();
 	}
 
 
@@ -317,8 +341,12 @@ public class AddressesPanel
 
 		String[][] newAddressBalanceData = this.balanceGatheringThread.getLastData();
 
-		if ((newAddressBalanceData != null) &&
-			Util.arraysAreDifferent(lastAddressBalanceData, newAddressBalanceData))
+		if (newAddressBalanceData == null)
+		{
+			return;
+		}
+
+		if (Util.arraysAreDifferent(lastAddressBalanceData, newAddressBalanceData))
 		{
 			Log.info("Updating table of addresses/balances A...");
 			this.remove(addressBalanceTablePane);
@@ -329,6 +357,27 @@ public class AddressesPanel
 			this.validate();
 			this.repaint();
 		}
+
+		this.markDataAsLive();
+	}
+
+
+	// May be null - if only the snapshot data is shown
+	public synchronized String[][] getLiveAddressBalanceData()
+	{
+		return this.dataIsStale ? null : this.lastAddressBalanceData;
+	}
+
+
+	private void markDataAsLive()
+	{
+		if (this.dataIsStale)
+		{
+			this.dataIsStale = false;
+			this.staleDataLabel.getParent().remove(this.staleDataLabel);
+			this.validate();
+			this.repaint();
+		}
 	}
 
 
@@ -0,0 +1,378 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.CharArrayWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Writes log entries asynchronously. Callers put entries into a bounded lock-free ring buffer
+ * and a single writer thread formats them, writes them in batches and flushes once per batch.
+ * When the buffer is full the configured overflow policy applies. On shutdown all buffered
+ * entries are written; entries arriving after that are written synchronously.
+ */
+public class AsyncLogWriter
+{
+	public static enum OVERFLOW_POLICY
+	{
+		BLOCK, // Caller waits until there is space - nothing is lost
+		DROP   // Entry is dropped and counted - caller never waits
+	};
+
+
+	/**
+	 * A single log entry - the message is already formatted.
+	 */
+	static class LogEntry
+	{
+		long      time;
+		String    threadName;
+		String    messageClass;
+		String    message;
+		Throwable throwable;
+	}
+
+
+	// Maximum number of entries written before a flush
+	private static final int BATCH_SIZE = 256;
+
+	// Time the writer sleeps at most if there is nothing to write
+	private static final long IDLE_PARK_NANOS = 50L * 1000 * 1000;
+
+	// Ring buffer (bounded multi-producer/single-consumer queue)
+	private final Object[]        slots;
+	private final AtomicLongArray sequences;
+	private final int             mask;
+	private final AtomicLong      tail = new AtomicLong(0);
+	private long                  head = 0; // Only used by the consumer
+
+	private final OVERFLOW_POLICY overflowPolicy;
+	private final AtomicLong      droppedEntries = new AtomicLong(0);
+
+	private final PrintStream consoleOut;
+	private final RollingLogFile fileOut;
+	private final Object      outputLock = new Object();
+
+	private final Thread     writerThread;
+	private volatile boolean writerSleeping = false;
+	private volatile boolean closed = false;
+
+	// Date formatting is cached per second - only used under the output lock
+	private long   lastFormattedSecond = -1;
+	private String lastFormattedDate;
+
+
+	/**
+	 * Creates and starts a new writer.
+	 *
+	 * @param consoleOut console stream - may be null.
+	 * @param fileOut log file - may be null.
+	 * @param capacity buffer capacity - rounded up to a power of 2.
+	 * @param overflowPolicy what to do when the buffer is full.
+	 */
+	public AsyncLogWriter(PrintStream consoleOut, RollingLogFile fileOut, int capacity, OVERFLOW_POLICY overflowPolicy)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.slots = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+		{
+			this.sequences.set(i, i);
+		}
+		this.mask = size - 1;
+
+		this.overflowPolicy = overflowPolicy;
+		this.consoleOut = consoleOut;
+		this.fileOut = fileOut;
+
+		this.writerThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				AsyncLogWriter.this.writeLoop();
+			}
+		}, "AsyncLogWriter");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+
+	/**
+	 * Submits an entry for writing.
+	 *
+	 * @param entry the entry to write.
+	 */
+	public void write(LogEntry entry)
+	{
+		if (this.closed)
+		{
+			this.writeSynchronously(entry);
+			return;
+		}
+
+		while (!this.offer(entry))
+		{
+			if (this.overflowPolicy == OVERFLOW_POLICY.DROP)
+			{
+				this.droppedEntries.incrementAndGet();
+				return;
+			}
+
+			// BLOCK - let the writer make space
+			LockSupport.unpark(this.writerThread);
+			LockSupport.parkNanos(100 * 1000);
+
+			if (this.closed)
+			{
+				this.writeSynchronously(entry);
+				return;
+			}
+		}
+
+		// Closed meanwhile - the writer thread may have done its last drain before the entry got in
+		if (this.closed)
+		{
+			synchronized (this.outputLock)
+			{
+				this.drain(Integer.MAX_VALUE);
+				this.flush();
+			}
+			return;
+		}
+
+		if (this.writerSleeping)
+		{
+			LockSupport.unpark(this.writerThread);
+		}
+	}
+
+
+	/**
+	 * Stops the writer thread after all buffered entries have been written. Entries submitted
+	 * later are written synchronously.
+	 *
+	 * @param timeoutMillis maximum time to wait for the writer thread.
+	 */
+	public void close(long timeoutMillis)
+	{
+		this.closed = true;
+		LockSupport.unpark(this.writerThread);
+
+		try
+		{
+			this.writerThread.join(timeoutMillis);
+		} catch (InterruptedException ie)
+		{
+			// Drained below
+		}
+
+		// If the writer did not make it - write what is left from here
+		synchronized (this.outputLock)
+		{
+			this.drain(Integer.MAX_VALUE);
+			this.flush();
+		}
+	}
+
+
+	private boolean offer(LogEntry entry)
+	{
+		long pos = this.tail.get();
+		while (true)
+		{
+			int index = (int)pos & this.mask;
+			long diff = this.sequences.get(index) - pos;
+			if (diff == 0)
+			{
+				if (this.tail.compareAndSet(pos, pos + 1))
+				{
+					this.slots[index] = entry;
+					this.sequences.lazySet(index, pos + 1);
+					return true;
+				}
+				pos = this.tail.get();
+			} else if (diff < 0)
+			{
+				return false; // Full
+			} else
+			{
+				pos = this.tail.get();
+			}
+		}
+	}
+
+
+	// Only called by one thread at a time - under the output lock
+	private LogEntry poll()
+	{
+		int index = (int)this.head & this.mask;
+		if (this.sequences.get(index) - (this.head + 1) < 0)
+		{
+			return null; // Empty
+		}
+
+		LogEntry entry = (LogEntry)this.slots[index];
+		this.slots[index] = null;
+		this.sequences.lazySet(index, this.head + this.slots.length);
+		this.head++;
+
+		return entry;
+	}
+
+
+	private void writeLoop()
+	{
+		while (true)
+		{
+			int written;
+			synchronized (this.outputLock)
+			{
+				written = this.drain(BATCH_SIZE);
+				if (written > 0)
+				{
+					this.flush();
+				}
+			}
+
+			if (written > 0)
+			{
+				continue;
+			}
+
+			if (this.closed)
+			{
+				break;
+			}
+
+			this.writerSleeping = true;
+			if (this.sequences.get((int)this.head & this.mask) - (this.head + 1) < 0)
+			{
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+			this.writerSleeping = false;
+		}
+	}
+
+
+	// Writes up to max entries - must be called under the output lock
+	private int drain(int max)
+	{
+		int count = 0;
+		LogEntry entry;
+		while ((count < max) && ((entry = this.poll()) != null))
+		{
+			this.output(entry);
+			count++;
+		}
+
+		long dropped = this.droppedEntries.getAndSet(0);
+		if (dropped > 0)
+		{
+			LogEntry warning = new LogEntry();
+			warning.time = System.currentTimeMillis();
+			warning.threadName = Thread.currentThread().getName();
+			warning.messageClass = "WARNING";
+			warning.message = dropped + " log messages dropped since the log buffer was full! ";
+			this.output(warning);
+		}
+
+		return count;
+	}
+
+
+	private void writeSynchronously(LogEntry entry)
+	{
+		synchronized (this.outputLock)
+		{
+			// Keep ordering - anything still buffered goes first
+			this.drain(Integer.MAX_VALUE);
+			this.output(entry);
+			this.flush();
+		}
+	}
+
+
+	private void output(LogEntry entry)
+	{
+		long second = entry.time / 1000;
+		if (second != this.lastFormattedSecond)
+		{
+			this.lastFormattedSecond = second;
+			this.lastFormattedDate = new Date(entry.time).toString();
+		}
+
+		StringBuilder line = new StringBuilder(entry.message.length() + 80);
+		line.append('[').append(entry.threadName).append("] ");
+		line.append('[').append(this.lastFormattedDate).append("] ");
+		line.append('[').append(entry.messageClass).append("] ");
+		line.append(entry.message);
+
+		if (entry.throwable != null)
+		{
+			CharArrayWriter car = new CharArrayWriter(500);
+			PrintWriter pr = new PrintWriter(car);
+			pr.println();  // One line extra before the exception.
+			entry.throwable.printStackTrace(pr);
+			pr.close();
+			line.append(car.toCharArray());
+		}
+
+		String text = line.toString();
+		if (this.consoleOut != null)
+		{
+			this.consoleOut.println(text);
+		}
+
+		if (this.fileOut != null)
+		{
+			this.fileOut.println(text);
+		}
+	}
+
+
+	private void flush()
+	{
+		if (this.consoleOut != null)
+		{
+			this.consoleOut.flush();
+		}
+
+		if (this.fileOut != null)
+		{
+			this.fileOut.flush();
+		}
+	}
+}
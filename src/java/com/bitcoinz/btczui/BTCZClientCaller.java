@@ -31,6 +31,7 @@ package com.bitcoinz.btczui;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.LineNumberReader;
 import java.io.StringReader;
 import java.math.BigDecimal;
@@ -39,6 +40,8 @@ import java.util.HashMap;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -48,10 +51,15 @@ import java.util.Set;
 import com.eclipsesource.json.Json;
 import com.eclipsesource.json.JsonArray;
 import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonPullParser;
 import com.eclipsesource.json.JsonValue;
 import com.eclipsesource.json.ParseException;
 import com.eclipsesource.json.WriterConfig;
 import com.bitcoinz.btczui.OSUtil.OS_TYPE;
+import com.bitcoinz.btczui.WalletRecords.OperationStatus;
+import com.bitcoinz.btczui.WalletRecords.ReceivedNote;
+import com.bitcoinz.btczui.WalletRecords.UnspentOutput;
+import com.bitcoinz.btczui.WalletRecords.WalletTransaction;
 
 
 /**
@@ -63,6 +71,11 @@ public class BTCZClientCaller
 {
 	private BTCZInstallationObserver installationObserver =	new BTCZInstallationObserver(OSUtil.getProgramDirectory());
 	private Boolean isTestnet = installationObserver.isOnTestNet();
+
+	// Chain tip of the last getNetworkAndBlockchainInfo() and its time
+	private String tipHash = null;
+	private Date   tipDate = null;
+
 	public static class WalletBalance
 	{
 		public double transparentBalance;
@@ -78,7 +91,13 @@ public class BTCZClientCaller
 	public static class NetworkAndBlockchainInfo
 	{
 		public int numConnections;
+		public int blockCount;
+		public int headerCount;              // Headers known - may be ahead of the blocks while syncing
+		public double verificationProgress;  // 0..1 as estimated by the daemon, -1 if not known
+		public String bestBlockHash;
 		public Date lastBlockDate;
+		public long rpcLatencyMillis; // Of the (trivial) getconnectioncount call
+
 	}
 
 
@@ -100,6 +119,9 @@ public class BTCZClientCaller
 	// BTCZ client program and daemon
 	private File bitcoinzcli, bitcoinzd;
 
+	// Used for calls that are made for every Z address
+	private AddressFanOutExecutor noteQueryExecutor = new AddressFanOutExecutor("ZAddressNoteQuery");
+
 
 	public BTCZClientCaller(String installDir)
 		throws IOException
@@ -135,6 +157,12 @@ public class BTCZClientCaller
 	}
 
 
+	public boolean isOnTestNet()
+	{
+		return this.isTestnet;
+	}
+
+
 	public synchronized Process startDaemon()
 		throws IOException, InterruptedException
 	{
@@ -235,24 +263,27 @@ public class BTCZClientCaller
 			notListed = " \u25B6";
 		}
 
-	    JsonArray jsonTransactions = executeCommandAndGetJsonArray(
+	    // Only the needed fields are extracted as the response is streamed
+	    List<String[]> jsonTransactions = executeCommandAndReadArrayOfObjects(
+	    	new String[] { "category", "confirmations", "amount", "time", "address", "txid" },
 	    	"listtransactions", wrapStringParameter(""), "300");
 	    String strTransactions[][] = new String[jsonTransactions.size()][];
 	    for (int i = 0; i < jsonTransactions.size(); i++)
 	    {
 	    	strTransactions[i] = new String[8];
-	    	JsonObject trans = jsonTransactions.get(i).asObject();
+	    	String[] trans = jsonTransactions.get(i);
+	    	checkRequiredFields(trans, 1, 2, 3, 5);
 
 	    	// Needs to be the same as in getWalletZReceivedTransactions()
 	    	// TODO: some day refactor to use object containers
 	    	strTransactions[i][0] = "\u2606T (Public)";
-	    	strTransactions[i][1] = trans.getString("category", "ERROR!");
-	    	strTransactions[i][2] = trans.get("confirmations").toString();
+	    	strTransactions[i][1] = (trans[0] != null) ? trans[0] : "ERROR!";
+	    	strTransactions[i][2] = trans[1];
 				strTransactions[i][3] = " ";
-	    	strTransactions[i][4] = trans.get("amount").toString();
-	    	strTransactions[i][5] = trans.get("time").toString();
-	    	strTransactions[i][6] = trans.getString("address", notListed + " (Z Address not listed by wallet!)");
-	    	strTransactions[i][7] = trans.get("txid").toString();
+	    	strTransactions[i][4] = trans[2];
+	    	strTransactions[i][5] = trans[3];
+	    	strTransactions[i][6] = (trans[4] != null) ? trans[4] : (notListed + " (Z Address not listed by wallet!)");
+	    	strTransactions[i][7] = "\"" + trans[5] + "\""; // Quoted as JsonValue.toString() did
 
 	    }
 
@@ -306,55 +337,86 @@ public class BTCZClientCaller
 		List<String> zAddresses = zAdrrData.get(0);
 		List<Boolean> isVKsOnly = zAdrrData.get(1);
 
+		// The addresses are queried in parallel. The workers only use unsynchronized private
+		// methods, so they are not blocked by the lock held here.
+		List<List<String[]>> perAddressTransactions = this.noteQueryExecutor.execute(
+			zAddresses,
+			new AddressFanOutExecutor.AddressCall<List<String[]>>()
+			{
+				@Override
+				public List<String[]> call(String zAddress)
+					throws WalletCallException, IOException, InterruptedException
+				{
+					return BTCZClientCaller.this.getZReceivedTransactionsForAddress(zAddress);
+				}
+			});
+
+		// Merged in the order of the addresses - so the table stays stable
 		List<String[]> zReceivedTransactions = new ArrayList<String[]>();
-
-		int k = 0;
-		for (String zAddress : zAddresses)
+		for (int k = 0; k < zAddresses.size(); k++)
 		{
-
-				boolean isVKonly = isVKsOnly.get(k);
-				k++;
-
-		    JsonArray jsonTransactions = executeCommandAndGetJsonArray(
-		    	"z_listreceivedbyaddress", wrapStringParameter(zAddress), "0");
-		    for (int i = 0; i < jsonTransactions.size(); i++)
-		    {
-		    	String[] currentTransaction = new String[8];
-		    	JsonObject trans = jsonTransactions.get(i).asObject();
-
-		    	String txID = trans.getString("txid", "ERROR!");
-		    	// Needs to be the same as in getWalletPublicTransactions()
-		    	// TODO: some day refactor to use object containers
-		    	currentTransaction[0] = "\u2605Z (Private)";
-		    	currentTransaction[1] = "receive";
-		    	currentTransaction[2] = this.getWalletTransactionConfirmations(txID);
-					currentTransaction[3] = isVKonly ? ("vk") : ("");
-		    	currentTransaction[4] = trans.get("amount").toString();
-		    	currentTransaction[5] = this.getWalletTransactionTime(txID); // TODO: minimize sub-calls
-		    	currentTransaction[6] = zAddress;
-		    	currentTransaction[7] = trans.get("txid").toString();
-
-		    	zReceivedTransactions.add(currentTransaction);
-		    }
+			boolean isVKonly = isVKsOnly.get(k);
+			for (String[] currentTransaction : perAddressTransactions.get(k))
+			{
+				currentTransaction[3] = isVKonly ? ("vk") : ("");
+				zReceivedTransactions.add(currentTransaction);
+			}
 		}
 
 		return zReceivedTransactions.toArray(new String[0][]);
 	}
 
 
-	public synchronized JsonObject[] getTransactionMessagingDataForZaddress(String ZAddress)
+	// Not synchronized - called in parallel by getWalletZReceivedTransactions()
+	private List<String[]> getZReceivedTransactionsForAddress(String zAddress)
 		throws WalletCallException, IOException, InterruptedException
 	{
-	    JsonArray jsonTransactions = executeCommandAndGetJsonArray(
-		    	"z_listreceivedbyaddress", wrapStringParameter(ZAddress), "0");
-	    List<JsonObject> transactions = new ArrayList<JsonObject>();
+		List<String[]> zReceivedTransactions = new ArrayList<String[]>();
+
+		// Memos and other large fields are skipped as the response is streamed
+		List<String[]> jsonTransactions = executeCommandAndReadArrayOfObjects(
+			new String[] { "txid", "amount" },
+			"z_listreceivedbyaddress", wrapStringParameter(zAddress), "0");
+		// Several notes may come from the same transaction - one lookup is enough for them
+		Map<String, WalletTransaction> walletTransactions = new HashMap<String, WalletTransaction>();
 		for (int i = 0; i < jsonTransactions.size(); i++)
 		{
-		   	JsonObject trans = jsonTransactions.get(i).asObject();
-	    	transactions.add(trans);
-	    }
+			String[] currentTransaction = new String[8];
+			String[] trans = jsonTransactions.get(i);
+			checkRequiredFields(trans, 0, 1);
 
-		return transactions.toArray(new JsonObject[0]);
+			String txID = trans[0];
+			WalletTransaction walletTransaction = walletTransactions.get(txID);
+			if (walletTransaction == null)
+			{
+				walletTransaction = this.getWalletTransaction(txID);
+				walletTransactions.put(txID, walletTransaction);
+			}
+
+			// Needs to be the same as in getWalletPublicTransactions()
+			// TODO: some day refactor to use object containers
+			currentTransaction[0] = "\u2605Z (Private)";
+			currentTransaction[1] = "receive";
+			currentTransaction[2] = String.valueOf(walletTransaction.confirmations);
+			currentTransaction[3] = ""; // Viewing key flag - set by the caller
+			currentTransaction[4] = trans[1];
+			currentTransaction[5] = String.valueOf(walletTransaction.time);
+			currentTransaction[6] = zAddress;
+			currentTransaction[7] = "\"" + txID + "\""; // Quoted as JsonValue.toString() did
+
+			zReceivedTransactions.add(currentTransaction);
+		}
+
+		return zReceivedTransactions;
+	}
+
+
+	// Not synchronized - it changes no wallet state and messaging addresses are queried in parallel
+	public /*synchronized*/ List<ReceivedNote> getReceivedNotes(String zAddress)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		return this.executeCommandAndBindRecords(
+			ReceivedNote.BINDER, "z_listreceivedbyaddress", wrapStringParameter(zAddress), "0");
 	}
 
 
@@ -362,13 +424,13 @@ public class BTCZClientCaller
 	public synchronized String[] getWalletPublicAddressesWithUnspentOutputs()
 		throws WalletCallException, IOException, InterruptedException
 	{
-		JsonArray jsonUnspentOutputs = executeCommandAndGetJsonArray("listunspent", "0");
+		List<String[]> jsonUnspentOutputs = executeCommandAndReadArrayOfObjects(
+			new String[] { "address" }, "listunspent", "0");
 
 		Set<String> addresses = new HashSet<>();
-	    for (int i = 0; i < jsonUnspentOutputs.size(); i++)
+	    for (String[] outp : jsonUnspentOutputs)
 	    {
-	    	JsonObject outp = jsonUnspentOutputs.get(i).asObject();
-	    	addresses.add(outp.getString("address", "ERROR!"));
+	    	addresses.add((outp[0] != null) ? outp[0] : "ERROR!");
 	    }
 
 	    return addresses.toArray(new String[0]);
@@ -457,24 +519,44 @@ public class BTCZClientCaller
 	}
 
 
-	// return UNIX time as tring
-	public synchronized String getWalletTransactionTime(String txID)
+	// Returns UNIX times for several transactions at once. bitcoinz-cli offers no batch
+	// RPC, so duplicate IDs are collapsed and all lookups are done under one lock acquisition.
+	public synchronized Map<String, Long> getWalletTransactionTimes(Collection<String> txIDs)
 		throws WalletCallException, IOException, InterruptedException
 	{
-		JsonObject jsonTransaction = this.executeCommandAndGetJsonObject(
-			"gettransaction", wrapStringParameter(txID));
+		Map<String, Long> times = new HashMap<String, Long>();
 
-		return String.valueOf(jsonTransaction.getLong("time", -1));
+		for (String txID : txIDs)
+		{
+			if (!times.containsKey(txID))
+			{
+				times.put(txID, this.getWalletTransaction(txID).time);
+			}
+		}
+
+		return times;
 	}
 
 
 	public synchronized String getWalletTransactionConfirmations(String txID)
 		throws WalletCallException, IOException, InterruptedException
 	{
-		JsonObject jsonTransaction = this.executeCommandAndGetJsonObject(
-			"gettransaction", wrapStringParameter(txID));
+		return String.valueOf(this.getWalletTransaction(txID).confirmations);
+	}
+
 
-		return jsonTransaction.get("confirmations").toString();
+	// Not synchronized - also used by the parallel Z address queries
+	private WalletTransaction getWalletTransaction(String txID)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		List<WalletTransaction> transactions = this.executeCommandAndBindRecords(
+			WalletTransaction.BINDER, "gettransaction", wrapStringParameter(txID));
+		if (transactions.size() != 1)
+		{
+			throw new WalletCallException("Unexpected response from wallet for gettransaction: " + txID);
+		}
+
+		return transactions.get(0);
 	}
 
 
@@ -482,6 +564,12 @@ public class BTCZClientCaller
 	public synchronized boolean isWatchOnlyOrInvalidAddress(String address)
 		throws WalletCallException, IOException, InterruptedException
 	{
+		// Validity is checked locally - only the ownership check needs the wallet
+		if (!AddressCodec.isValid(address))
+		{
+			return true;
+		}
+
 		JsonObject response = this.executeCommandAndGetJsonValue("validateaddress", wrapStringParameter(address)).asObject();
 
 		if (response.getBoolean("isvalid", false))
@@ -555,17 +643,17 @@ public class BTCZClientCaller
 
 
 		// Get the unspent array   "[\"t1PGFqEzfmQch1gKD3ra4k18PNj3tTUUSqg\"]@
-		JsonArray responseUnspent = this.executeCommandAndGetJsonArray("listunspent", "0", "99999", "[\""+from+"\"]");
-		JsonObject jsonObj = responseUnspent.get(0).asObject();
-		String status = jsonObj.getString("status", "ERROR");
-		Log.info("The unspent are: " + responseUnspent.toString());
+		List<UnspentOutput> responseUnspent = this.executeCommandAndBindRecords(
+			UnspentOutput.BINDER, "listunspent", "0", "99999", "[\""+from+"\"]");
 
-		// Get all unspent amount
+		// Get all unspent amount - and the inputs for the raw transaction
 		Double amountUnspentTot = 0.0;
-		for (int i=0;i<responseUnspent.size();i++) {
-			jsonObj = responseUnspent.get(i).asObject();
-      amountUnspentTot += jsonObj.getDouble("amount", 0.00);
-    }
+		JsonArray txInputs = new JsonArray();
+		for (UnspentOutput output : responseUnspent) {
+			amountUnspentTot += output.amount;
+			txInputs.add(new JsonObject().add("txid", output.txid).add("vout", output.vout));
+		}
+		Log.info("The unspent are: {0} outputs with total amount {1}", responseUnspent.size(), amountUnspentTot);
 
 
 		// Get the return amount
@@ -583,7 +671,7 @@ public class BTCZClientCaller
 		}
 
 		Log.info("The tx are: " + txAddr);
-		String rawTX = this.executeCommandAndGetSingleStringResponse("createrawtransaction", wrapStringParameter(responseUnspent.toString()), wrapStringParameter(txAddr));
+		String rawTX = this.executeCommandAndGetSingleStringResponse("createrawtransaction", wrapStringParameter(txInputs.toString()), wrapStringParameter(txAddr));
 
 		Log.info("The following raw TX will be signed: " + rawTX.trim());
 		JsonObject signedTX = this.executeCommandAndGetJsonObject("signrawtransaction", rawTX.trim());
@@ -769,8 +857,9 @@ public class BTCZClientCaller
 	}
 
 
-	// Verifies a message - true if OK
-	public synchronized boolean verifyMessage(String address, String signature, String message)
+	// Verifies a message - true if OK. Not synchronized since it changes no wallet state and
+	// received messages are verified concurrently.
+	public /*synchronized*/ boolean verifyMessage(String address, String signature, String message)
 		throws WalletCallException, IOException, InterruptedException
 	{
 	    String response = this.executeCommandAndGetSingleStringResponse(
@@ -786,11 +875,8 @@ public class BTCZClientCaller
 	public synchronized boolean isSendingOperationComplete(String opID)
 	    throws WalletCallException, IOException, InterruptedException
 	{
-		JsonArray response = this.executeCommandAndGetJsonArray(
-			"z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]"));
-		JsonObject jsonStatus = response.get(0).asObject();
-
-		String status = jsonStatus.getString("status", "ERROR");
+		OperationStatus response = this.getOperationStatus(opID);
+		String status = (response.status != null) ? response.status : "ERROR";
 
 		Log.info("Operation " + opID + " status is " + response + ".");
 
@@ -812,11 +898,8 @@ public class BTCZClientCaller
 	public synchronized boolean isCompletedOperationSuccessful(String opID)
 	    throws WalletCallException, IOException, InterruptedException
 	{
-		JsonArray response = this.executeCommandAndGetJsonArray(
-			"z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]"));
-		JsonObject jsonStatus = response.get(0).asObject();
-
-		String status = jsonStatus.getString("status", "ERROR");
+		OperationStatus response = this.getOperationStatus(opID);
+		String status = (response.status != null) ? response.status : "ERROR";
 
 		Log.info("Operation " + opID + " status is " + response + ".");
 
@@ -836,22 +919,7 @@ public class BTCZClientCaller
 	public synchronized String getSuccessfulOperationTXID(String opID)
         throws WalletCallException, IOException, InterruptedException
 	{
-		String TXID = null;
-		JsonArray response = this.executeCommandAndGetJsonArray(
-			"z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]"));
-		JsonObject jsonStatus = response.get(0).asObject();
-		JsonValue  opResultValue = jsonStatus.get("result");
-
-		if (opResultValue != null)
-		{
-			JsonObject opResult = opResultValue.asObject();
-			if (opResult.get("txid") != null)
-			{
-				TXID = opResult.get("txid").asString();
-			}
-		}
-
-		return TXID;
+		return this.getOperationStatus(opID).resultTxID;
 	}
 
 
@@ -859,12 +927,23 @@ public class BTCZClientCaller
 	public synchronized String getOperationFinalErrorMessage(String opID)
 	    throws WalletCallException, IOException, InterruptedException
 	{
-		JsonArray response = this.executeCommandAndGetJsonArray(
-			"z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]"));
-		JsonObject jsonStatus = response.get(0).asObject();
+		OperationStatus response = this.getOperationStatus(opID);
 
-		JsonObject jsonError = jsonStatus.get("error").asObject();
-		return jsonError.getString("message", "ERROR!");
+		return (response.errorMessage != null) ? response.errorMessage : "ERROR!";
+	}
+
+
+	private OperationStatus getOperationStatus(String opID)
+	    throws WalletCallException, IOException, InterruptedException
+	{
+		List<OperationStatus> response = this.executeCommandAndBindRecords(
+			OperationStatus.BINDER, "z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]"));
+		if (response.isEmpty())
+		{
+			throw new WalletCallException("No status from wallet for operation: " + opID);
+		}
+
+		return response.get(0);
 	}
 
 
@@ -873,14 +952,28 @@ public class BTCZClientCaller
 	{
 		NetworkAndBlockchainInfo info = new NetworkAndBlockchainInfo();
 
+		// Height, headers, tip and progress - in one call
+		JsonObject chainInfo = this.executeCommandAndGetJsonObject("getblockchaininfo", null);
+		info.blockCount = chainInfo.getInt("blocks", -1);
+		info.headerCount = chainInfo.getInt("headers", info.blockCount);
+		info.verificationProgress = chainInfo.getDouble("verificationprogress", -1);
+		info.bestBlockHash = chainInfo.getString("bestblockhash", "");
+
+		// The tip time is only fetched when the tip has changed
+		if (!info.bestBlockHash.equals(this.tipHash))
+		{
+			JsonObject tip = this.executeCommandAndGetJsonObject(
+				"getblockheader", wrapStringParameter(info.bestBlockHash));
+			this.tipDate = new Date(tip.getLong("time", -1) * 1000L);
+			this.tipHash = info.bestBlockHash;
+		}
+		info.lastBlockDate = this.tipDate;
+
+		long start = System.nanoTime();
 		String strNumCons = this.executeCommandAndGetSingleStringResponse("getconnectioncount");
+		info.rpcLatencyMillis = (System.nanoTime() - start) / 1000000;
 		info.numConnections = Integer.valueOf(strNumCons.trim());
 
-		String strBlockCount = this.executeCommandAndGetSingleStringResponse("getblockcount");
-		String lastBlockHash = this.executeCommandAndGetSingleStringResponse("getblockhash", strBlockCount.trim());
-		JsonObject lastBlock = this.executeCommandAndGetJsonObject("getblock", wrapStringParameter(lastBlockHash.trim()));
-		info.lastBlockDate = new Date(Long.valueOf(lastBlock.getLong("time", -1) * 1000L));
-
 		return info;
 	}
 
@@ -1261,40 +1354,201 @@ public class BTCZClientCaller
 	private JsonValue executeCommandAndGetJsonValue(String command1, String command2, String command3)
 		throws WalletCallException, IOException, InterruptedException
 	{
-		String strResponse = this.executeCommandAndGetSingleStringResponse(command1, command2, command3);
+		return this.executeCommandAndGetJsonValue(command1, command2, command3, null);
+	}
 
-		JsonValue response = null;
-		try
+
+
+	private JsonValue executeCommandAndGetJsonValue(String command1, String command2, String command3,  String command4)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		List<String> commands = new ArrayList<String>();
+		for (String command : new String[] { command1, command2, command3, command4 })
 		{
-		  	response = Json.parse(strResponse);
-		} catch (ParseException pe)
+			if (command == null)
+			{
+				break;
+			}
+			commands.add(command);
+		}
+
+		// The UTF-8 output is parsed as it is read - with no intermediate string
+		return this.executeCommandAndReadOutput(
+			new CommandExecutor.OutputReader<JsonValue>()
+			{
+				@Override
+				public JsonValue read(InputStream out)
+					throws IOException
+				{
+					return Json.parse(out);
+				}
+			},
+			commands.toArray(new String[0]));
+	}
+
+
+
+
+	/**
+	 * Executes a command that returns an array of objects and extracts only the given fields of
+	 * each object while the output is streamed - no JSON tree is built.
+	 *
+	 * @param fieldNames names of the fields to extract.
+	 * @param commands the command and its parameters.
+	 *
+	 * @return one array per object, with the field values in the order of fieldNames. String values
+	 *         are unquoted, numbers are as in the response. Missing, null and object/array values
+	 *         are null.
+	 */
+	private List<String[]> executeCommandAndReadArrayOfObjects(final String[] fieldNames, String... commands)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		List<String[]> objects = this.executeCommandAndReadOutput(
+			new CommandExecutor.OutputReader<List<String[]>>()
+			{
+				@Override
+				public List<String[]> read(InputStream out)
+					throws IOException
+				{
+					return readArrayOfObjects(new JsonPullParser(out), fieldNames);
+				}
+			},
+			commands);
+
+		if (objects == null)
 		{
-		  	throw new WalletCallException(strResponse + "\n" + pe.getMessage() + "\n", pe);
+			throw new WalletCallException("Unexpected response from wallet, expected array of objects: " + commands[0]);
 		}
 
-		return response;
+		return objects;
 	}
 
 
+	/**
+	 * Executes a command and binds its response (an object or array of objects) to typed records
+	 * while the output is streamed.
+	 *
+	 * @param binder binds the records.
+	 * @param commands the command and its parameters.
+	 *
+	 * @return the records.
+	 */
+	private <R> List<R> executeCommandAndBindRecords(final RecordBinder<R> binder, String... commands)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		try
+		{
+			return this.executeCommandAndReadOutput(
+				new CommandExecutor.OutputReader<List<R>>()
+				{
+					@Override
+					public List<R> read(InputStream out)
+						throws IOException
+					{
+						return binder.parse(out);
+					}
+				},
+				commands);
+		} catch (NumberFormatException nfe)
+		{
+			throw new WalletCallException("Unexpected number in response from wallet: " + commands[0], nfe);
+		}
+	}
 
-	private JsonValue executeCommandAndGetJsonValue(String command1, String command2, String command3,  String command4)
+
+	// Streams the standard output of a command to a reader - errors are handled as for other calls
+	private <T> T executeCommandAndReadOutput(CommandExecutor.OutputReader<T> outputReader, String... commands)
 		throws WalletCallException, IOException, InterruptedException
 	{
-		String strResponse = this.executeCommandAndGetSingleStringResponse(command1, command2, command3, command4);
+		String[] params = new String[commands.length + 1];
+		params[0] = this.bitcoinzcli.getCanonicalPath();
+		System.arraycopy(commands, 0, params, 1, commands.length);
 
-		JsonValue response = null;
+		CommandExecutor caller = new CommandExecutor(params);
+		T result = null;
+		ParseException parseError = null;
 		try
 		{
-		  	response = Json.parse(strResponse);
+			result = caller.execute(outputReader);
 		} catch (ParseException pe)
 		{
-		  	throw new WalletCallException(strResponse + "\n" + pe.getMessage() + "\n", pe);
+			parseError = pe;
 		}
 
-		return response;
+		String errorOutput = caller.getErrorOutput();
+		if (errorOutput.trim().toLowerCase(Locale.ROOT).startsWith("error:")       ||
+			errorOutput.trim().toLowerCase(Locale.ROOT).startsWith("error code:"))
+		{
+		  	throw new WalletCallException("Error response from wallet: " + errorOutput);
+		}
+
+		if (parseError != null)
+		{
+		  	throw new WalletCallException(errorOutput + "\n" + parseError.getMessage() + "\n", parseError);
+		}
+
+		return result;
+	}
+
+
+	// Returns null if the input is not an array of objects
+	private static List<String[]> readArrayOfObjects(JsonPullParser parser, String[] fieldNames)
+		throws IOException
+	{
+		if (parser.next() != JsonPullParser.Event.START_ARRAY)
+		{
+			return null;
+		}
+
+		List<String[]> objects = new ArrayList<String[]>();
+		while (parser.next() == JsonPullParser.Event.START_OBJECT)
+		{
+			String[] fields = new String[fieldNames.length];
+			while (parser.next() == JsonPullParser.Event.NAME)
+			{
+				int index = Arrays.asList(fieldNames).indexOf(parser.getString());
+				if (index < 0)
+				{
+					parser.skipValue();
+					continue;
+				}
+
+				switch (parser.next())
+				{
+					case STRING:
+					case NUMBER:
+						fields[index] = parser.getString();
+						break;
+					case TRUE:
+					case FALSE:
+						fields[index] = String.valueOf(parser.getEvent() == JsonPullParser.Event.TRUE);
+						break;
+					case START_OBJECT:
+					case START_ARRAY:
+						parser.skipValue();
+						break;
+					default:
+						break;
+				}
+			}
+			objects.add(fields);
+		}
+
+		return (parser.getEvent() == JsonPullParser.Event.END_ARRAY) ? objects : null;
 	}
 
 
+	private static void checkRequiredFields(String[] fields, int... indexes)
+		throws WalletCallException
+	{
+		for (int index : indexes)
+		{
+			if (fields[index] == null)
+			{
+				throw new WalletCallException("Unexpected response from wallet, missing field: " + Arrays.toString(fields));
+			}
+		}
+	}
 
 
 	private String executeCommandAndGetSingleStringResponse(String command1)
@@ -53,6 +53,9 @@ public class BTCZInstallationObserver
 		public double residentSizeMB;
 		public double virtualSizeMB;
 		public double cpuPercentage;
+		// Disk I/O rates - negative if not known
+		public double ioReadKBPerSecond  = -1;
+		public double ioWriteKBPerSecond = -1;
 	}
 
 	public static enum DAEMON_STATUS
@@ -66,6 +69,9 @@ public class BTCZInstallationObserver
 
 	private Boolean isOnTestNet = null;
 
+	// Used instead of ps on Linux - null if /proc may not be used
+	private ProcDaemonSampler procSampler = null;
+
 	public BTCZInstallationObserver(String installDir)
 		throws IOException
 	{
@@ -100,6 +106,11 @@ public class BTCZInstallationObserver
 				"Please place files BitcoinZWallet.jar, " + OSUtil.getBTCZCli() + ", " +
 				OSUtil.getBTCZd() + " in the same directory.");
 		}
+
+		if ((OSUtil.getOSType() == OS_TYPE.LINUX) && ProcDaemonSampler.isAvailable())
+		{
+			this.procSampler = new ProcDaemonSampler("bitcoinzd");
+		}
 	}
 
 
@@ -121,6 +132,18 @@ public class BTCZInstallationObserver
 	private synchronized DaemonInfo getDaemonInfoForUNIXLikeOS()
 		throws IOException, InterruptedException
 	{
+		if (this.procSampler != null)
+		{
+			try
+			{
+				return this.procSampler.sample();
+			} catch (IOException | RuntimeException e)
+			{
+				Log.warning("Could not sample bitcoinzd via /proc - using ps from now on: {0}", e.toString());
+				this.procSampler = null;
+			}
+		}
+
 		return getDaemonInfoForUNIXLikeOS("bitcoinzd");
 	}
 
@@ -59,6 +59,8 @@ import javax.swing.UIManager.LookAndFeelInfo;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonStringCache;
 import com.bitcoinz.btczui.OSUtil.OS_TYPE;
 import com.bitcoinz.btczui.BTCZClientCaller.NetworkAndBlockchainInfo;
 import com.bitcoinz.btczui.BTCZClientCaller.WalletCallException;
@@ -102,14 +104,18 @@ public class BtczUI
     private JMenuItem menuItemShareFileViaIPFS;
 
     private DashboardPanel   dashboard;
-    private AddressesPanel   addresses;
-    private SendCashPanel    sendPanel;
-    private RawTXPanel       rawTXPanel;
-    private AddressBookPanel addressBookPanel;
-    private MessagingPanel   messagingPanel;
-    private MessagingStorage messagingStorage;
+    // All tabs but the overview are created when first selected
+    private LazyTab<AddressesPanel>   addressesTab;
+    private LazyTab<SendCashPanel>    sendTab;
+    private LazyTab<RawTXPanel>       rawTXTab;
+    private LazyTab<AddressBookPanel> addressBookTab;
+    private LazyTab<MessagingPanel>   messagingTab;
+    private WalletSnapshot   snapshot;
     private List<Image>      imageList;
 
+    // Startup of the main window until it may be used
+    private PhaseTimer startupTimer = new PhaseTimer("Main window startup until interactive");
+
     JTabbedPane tabs;
     public static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789~`!@#$%^&*()-_=+[{]}\\|;:\'\",<.>/?";
 
@@ -118,6 +124,8 @@ public class BtczUI
     {
         super("BitcoinZ Wallet 2.0.10");
 
+        startupTimer.startPhase("Initialization");
+
         if (progressDialog != null)
         {
         	progressDialog.setProgressText("Starting GUI wallet...");
@@ -152,40 +160,86 @@ public class BtczUI
         Font oldTabFont = tabs.getFont();
         Font newTabFont  = new Font(oldTabFont.getName(), Font.BOLD | Font.ITALIC, oldTabFont.getSize() * 57 / 50);
         tabs.setFont(newTabFont);
-        BackupTracker backupTracker = new BackupTracker(this);
+        final BackupTracker backupTracker = new BackupTracker(this);
+
+        // Last known wallet state - shown until the live data is gathered
+        startupTimer.startPhase("Loading wallet snapshot");
+        snapshot = WalletSnapshot.load(installationObserver.isOnTestNet());
 
+        startupTimer.startPhase("Overview tab");
         tabs.addTab("Overview ",
         		    new ImageIcon(cl.getResource("images/overview.png")),
         		    dashboard = new DashboardPanel(this, installationObserver, clientCaller,
-        		    		                       errorReporter, backupTracker));
-        tabs.addTab("Own addresses ",
+        		    		                       errorReporter, backupTracker, snapshot));
+
+        startupTimer.startPhase("Other tabs and menus");
+        addressesTab = new LazyTab<AddressesPanel>(tabs, "Own addresses ",
         		    new ImageIcon(cl.getResource("images/own-addresses.png")),
-        		    addresses = new AddressesPanel(this, clientCaller, errorReporter));
-        tabs.addTab("Send cash ",
+        		    new LazyTab.PanelFactory<AddressesPanel>()
+        		    {
+        		    	public AddressesPanel createPanel()
+        		    		throws Exception
+        		    	{
+        		    		return new AddressesPanel(BtczUI.this, clientCaller, errorReporter, snapshot);
+        		    	}
+        		    },
+        		    errorReporter);
+        sendTab = new LazyTab<SendCashPanel>(tabs, "Send cash ",
         		    new ImageIcon(cl.getResource("images/send.png")),
-        		    sendPanel = new SendCashPanel(clientCaller, errorReporter, installationObserver, backupTracker));
-
-        tabs.addTab("Raw Transaction ",
+        		    new LazyTab.PanelFactory<SendCashPanel>()
+        		    {
+        		    	public SendCashPanel createPanel()
+        		    		throws Exception
+        		    	{
+        		    		return new SendCashPanel(clientCaller, errorReporter, installationObserver, backupTracker);
+        		    	}
+        		    },
+        		    errorReporter);
+
+        rawTXTab = new LazyTab<RawTXPanel>(tabs, "Raw Transaction ",
         		    new ImageIcon(cl.getResource("images/send.png")),
-        		    rawTXPanel = new RawTXPanel(clientCaller, errorReporter, installationObserver, backupTracker));
-
-        tabs.addTab("Address book ",
+        		    new LazyTab.PanelFactory<RawTXPanel>()
+        		    {
+        		    	public RawTXPanel createPanel()
+        		    		throws Exception
+        		    	{
+        		    		return new RawTXPanel(clientCaller, errorReporter, installationObserver, backupTracker);
+        		    	}
+        		    },
+        		    errorReporter);
+
+        addressBookTab = new LazyTab<AddressBookPanel>(tabs, "Address book ",
     		        new ImageIcon(cl.getResource("images/address-book.png")),
-    		        addressBookPanel = new AddressBookPanel(sendPanel, tabs));
-
-        tabs.addTab("Messaging ",
+    		        new LazyTab.PanelFactory<AddressBookPanel>()
+    		        {
+    		        	public AddressBookPanel createPanel()
+    		        		throws Exception
+    		        	{
+    		        		return new AddressBookPanel(sendTab.get(), tabs);
+    		        	}
+    		        },
+    		        errorReporter);
+
+        messagingTab = new LazyTab<MessagingPanel>(tabs, "Messaging ",
                 new ImageIcon(cl.getResource("images/messaging.png")),
-                messagingPanel = new MessagingPanel(this, sendPanel, tabs, clientCaller, errorReporter));
+                new LazyTab.PanelFactory<MessagingPanel>()
+                {
+                	public MessagingPanel createPanel()
+                		throws Exception
+                	{
+                		return new MessagingPanel(BtczUI.this, sendTab.get(), tabs, clientCaller, errorReporter);
+                	}
+                },
+                errorReporter);
 
-        // Disable Messaging tab option
-        messagingStorage = new MessagingStorage();
-        boolean msgDisabled = messagingStorage.getMessagingOptions().isMessagingDisabled();
-        if (msgDisabled) {tabs.setEnabledAt(5,false);}
+        // Disable Messaging tab option - the options are read without loading the messaging storage
+        boolean msgDisabled = MessagingStorage.readMessagingOptions().isMessagingDisabled();
+        if (msgDisabled) {tabs.setEnabledAt(tabs.indexOfComponent(messagingTab.getContainer()), false);}
 
         contentPane.add(tabs);
 
         this.walletOps = new WalletOperations(
-            	this, tabs, dashboard, addresses, sendPanel,
+            	this, tabs, dashboard, addressesTab, sendTab,
             	installationObserver, clientCaller, errorReporter, backupTracker);
 
         int width = 1024;
@@ -376,7 +430,11 @@ public class BtczUI
                    @Override
                    public void actionPerformed(ActionEvent e)
                    {
-            			BtczUI.this.messagingPanel.openOwnIdentityDialog();
+                       MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+                       if (messagingPanel != null)
+                       {
+                           messagingPanel.openOwnIdentityDialog();
+                       }
                    }
                }
         );
@@ -387,7 +445,11 @@ public class BtczUI
                    @Override
                    public void actionPerformed(ActionEvent e)
                    {
-            			BtczUI.this.messagingPanel.exportOwnIdentity();
+                       MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+                       if (messagingPanel != null)
+                       {
+                           messagingPanel.exportOwnIdentity();
+                       }
                    }
                }
         );
@@ -398,7 +460,11 @@ public class BtczUI
                    @Override
                    public void actionPerformed(ActionEvent e)
                    {
-            			BtczUI.this.messagingPanel.importContactIdentity();
+                       MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+                       if (messagingPanel != null)
+                       {
+                           messagingPanel.importContactIdentity();
+                       }
                    }
                }
         );
@@ -409,7 +475,11 @@ public class BtczUI
                    @Override
                    public void actionPerformed(ActionEvent e)
                    {
-            			BtczUI.this.messagingPanel.addMessagingGroup();
+                       MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+                       if (messagingPanel != null)
+                       {
+                           messagingPanel.addMessagingGroup();
+                       }
                    }
                }
         );
@@ -420,7 +490,11 @@ public class BtczUI
                    @Override
                    public void actionPerformed(ActionEvent e)
                    {
-            			BtczUI.this.messagingPanel.removeSelectedContact();
+                       MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+                       if (messagingPanel != null)
+                       {
+                           messagingPanel.removeSelectedContact();
+                       }
                    }
                }
         );menuItemMessagingOptions.addActionListener(
@@ -429,7 +503,11 @@ public class BtczUI
                    @Override
                    public void actionPerformed(ActionEvent e)
                    {
-            			BtczUI.this.messagingPanel.openOptionsDialog();
+                       MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+                       if (messagingPanel != null)
+                       {
+                           messagingPanel.openOptionsDialog();
+                       }
                    }
                }
        );
@@ -440,7 +518,11 @@ public class BtczUI
                    @Override
                    public void actionPerformed(ActionEvent e)
                    {
-            			BtczUI.this.messagingPanel.shareFileViaIPFS();
+                       MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+                       if (messagingPanel != null)
+                       {
+                           messagingPanel.shareFileViaIPFS();
+                       }
                    }
                }
        );
@@ -454,6 +536,19 @@ public class BtczUI
             {
                 BtczUI.this.exitProgram();
             }
+
+            @Override
+            public void windowOpened(WindowEvent e)
+            {
+                // Runs after the events of the first showing of the window
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    public void run()
+                    {
+                        BtczUI.this.startupTimer.finish();
+                    }
+                });
+            }
         });
 
         // Show initial message
@@ -510,9 +605,13 @@ public class BtczUI
     			public void stateChanged(ChangeEvent e)
     			{
     				JTabbedPane tabs = (JTabbedPane)e.getSource();
-    				if (tabs.getSelectedIndex() == 4)
+    				if (tabs.getSelectedComponent() == BtczUI.this.messagingTab.getContainer())
     				{
-    					BtczUI.this.messagingPanel.tabSelected();
+    					MessagingPanel messagingPanel = BtczUI.this.getMessagingPanel();
+    					if (messagingPanel != null)
+    					{
+    						messagingPanel.tabSelected();
+    					}
     				}
     			}
     		}
@@ -526,17 +625,84 @@ public class BtczUI
 
         this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
+        this.saveWalletSnapshot();
+
         this.dashboard.stopThreadsAndTimers();
-        this.addresses.stopThreadsAndTimers();
-        this.sendPanel.stopThreadsAndTimers();
-        this.messagingPanel.stopThreadsAndTimers();
+        for (LazyTab<? extends WalletTabPanel> tab : Arrays.asList(this.addressesTab, this.sendTab, this.messagingTab))
+        {
+            if (tab.getIfCreated() != null)
+            {
+                tab.getIfCreated().stopThreadsAndTimers();
+            }
+        }
 
         BtczUI.this.setVisible(false);
         BtczUI.this.dispose();
 
+        Log.shutdown();
+
         System.exit(0);
     }
 
+    // Creates the messaging panel if needed - null if that failed
+    private MessagingPanel getMessagingPanel()
+    {
+        try
+        {
+            return this.messagingTab.get();
+        } catch (Exception ex)
+        {
+            Log.error("Unexpected error: ", ex);
+            this.errorReporter.reportError(ex, false);
+            return null;
+        }
+    }
+
+
+    // Saves the last live wallet state to be shown at the next start
+    private void saveWalletSnapshot()
+    {
+        try
+        {
+            WalletSnapshot current = new WalletSnapshot();
+            current.testNet      = this.installationObserver.isOnTestNet();
+            current.savedAt      = System.currentTimeMillis();
+            current.balance      = this.dashboard.getLiveWalletBalance();
+            current.transactions = this.dashboard.getLiveTransactionsData();
+            Integer blockCount = this.dashboard.getBlockCount();
+            current.blockHeight = (blockCount != null) ? blockCount : -1;
+
+            // The previous snapshot is kept unless the dashboard data is live
+            if ((current.balance == null) || (current.transactions == null))
+            {
+                Log.info("Wallet snapshot not saved - live wallet data is not complete yet");
+                return;
+            }
+
+            // The address table of the previous snapshot is kept, with its age, if there is no live one
+            AddressesPanel addresses = this.addressesTab.getIfCreated();
+            if (addresses != null)
+            {
+                current.addressBalances = addresses.getLiveAddressBalanceData();
+                current.addressBlockHeight = current.blockHeight;
+            }
+            if ((current.addressBalances == null) && (this.snapshot != null))
+            {
+                current.addressBalances = this.snapshot.addressBalances;
+                current.addressBlockHeight = this.snapshot.addressBlockHeight;
+            }
+
+            long start = System.currentTimeMillis();
+            current.save();
+            Log.info("Wallet snapshot of {0} saved in {1} ms",
+                     current.describe(), System.currentTimeMillis() - start);
+        } catch (IOException ioe)
+        {
+            Log.warning("Could not save the wallet snapshot: {0}", ioe.toString());
+        }
+    }
+
+
     public static void main(String argv[])
         throws IOException
     {
@@ -555,6 +721,9 @@ public class BtczUI
         	Log.info("Class path: " + System.getProperty("java.class.path"));
         	Log.info("Environment PATH: " + System.getenv("PATH"));
 
+        	// RPC responses repeat the same member names and addresses - their strings are shared
+        	Json.setStringCache(new JsonStringCache(4096, 40));
+
             // Look and feel settings - a custom OS-look and feel is set for Windows
             if (os == OS_TYPE.WINDOWS)
             {
@@ -32,8 +32,11 @@ package com.bitcoinz.btczui;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -43,8 +46,23 @@ import java.io.Reader;
  */
 public class CommandExecutor
 {
+	/**
+	 * Reads the standard output of a command while it runs.
+	 */
+	public static interface OutputReader<T>
+	{
+		T read(InputStream out)
+			throws IOException;
+	}
+
+
+	// Processes of execute(OutputReader) that are running - by the thread reading their output
+	private static final Map<Thread, Process> readProcesses = new ConcurrentHashMap<Thread, Process>();
+
 	private String args[];
 
+	private String errorOutput = "";
+
 	public CommandExecutor(String args[])
 		throws IOException
 	{
@@ -121,4 +139,98 @@ public class CommandExecutor
 
 		return result.toString();
 	}
+
+
+	/**
+	 * Executes the command and passes its standard output as a stream to the reader - so large
+	 * outputs need not be held in memory. Whatever the reader leaves unread is discarded. The error
+	 * output is collected separately and is available from getErrorOutput() afterwards.
+	 *
+	 * @param outputReader reads the standard output.
+	 *
+	 * @return the result of the reader.
+	 */
+	public <T> T execute(OutputReader<T> outputReader)
+		throws IOException, InterruptedException
+	{
+		final StringBuffer error = new StringBuffer();
+
+		Process proc = Runtime.getRuntime().exec(args);
+		readProcesses.put(Thread.currentThread(), proc);
+		if (Thread.currentThread().isInterrupted())
+		{
+			// Cancelled before the process could be found by destroyProcessReadBy()
+			proc.destroy();
+		}
+		final Reader err = new InputStreamReader(proc.getErrorStream());
+
+		Thread errThread =  new Thread(
+			new Runnable()
+			{
+			    @Override
+				public void run()
+				{
+			    	try
+				    {
+						int c;
+						while ((c = err.read()) != -1)
+						{
+							error.append((char)c);
+						}
+					} catch (IOException ioe)
+					{
+						// Error output is only informative
+					}
+				}
+			}
+		);
+		errThread.start();
+
+		InputStream in = new BufferedInputStream(proc.getInputStream());
+		try
+		{
+			return outputReader.read(in);
+		} finally
+		{
+			try
+			{
+				// The process may block if its output is not fully read
+				byte[] rest = new byte[8192];
+				while (in.read(rest) != -1)
+				{
+					// Discarded
+				}
+				in.close();
+
+				proc.waitFor();
+				errThread.join();
+				this.errorOutput = error.toString();
+			} finally
+			{
+				readProcesses.remove(Thread.currentThread());
+			}
+		}
+	}
+
+
+	/**
+	 * Destroys the process whose output a thread is reading in execute(OutputReader) - if any. A
+	 * blocked read of the output cannot be interrupted, but it ends once the process is gone.
+	 *
+	 * @param thread the thread reading the output.
+	 */
+	public static void destroyProcessReadBy(Thread thread)
+	{
+		Process proc = readProcesses.get(thread);
+		if (proc != null)
+		{
+			proc.destroy();
+		}
+	}
+
+
+	public String getErrorOutput()
+	{
+		return this.errorOutput;
+	}
 }
@@ -0,0 +1,265 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.ParseException;
+
+
+/**
+ * Finds out if bitcoinzd is ready by calling its RPC port directly, which takes about a
+ * millisecond - compared to starting bitcoinz-cli for every check. While the daemon is starting
+ * it answers with error -28 and a message like "Loading block index..." that tells the phase.
+ *
+ * The port and credentials are taken from bitcoinz.conf (rpcport, rpcuser, rpcpassword) or
+ * from the .cookie file the daemon creates. The port may also be set with the system property
+ * bitcoinz.rpc.port.
+ */
+public class DaemonReadinessProbe
+{
+	public static enum STATE
+	{
+		DOWN,       // Nothing listens on the RPC port
+		WARMING_UP, // Answers with error -28, message tells the phase
+		READY
+	};
+
+
+	/**
+	 * The outcome of a single probe.
+	 */
+	public static class Result
+	{
+		public STATE  state;
+		public String message; // Warm up message of the daemon
+		public int    percent; // Progress of the phase if the message has one, -1 otherwise
+
+
+		public Result(STATE state, String message)
+		{
+			this.state   = state;
+			this.message = message;
+			this.percent = -1;
+
+			Matcher matcher = (message != null) ? PERCENT.matcher(message) : null;
+			if ((matcher != null) && matcher.find())
+			{
+				this.percent = Math.min(100, Integer.parseInt(matcher.group(1)));
+			}
+		}
+
+
+		/**
+		 * @return the phase of the warm up, the message without numbers - so that it stays the
+		 *         same while the progress changes.
+		 */
+		public String getPhase()
+		{
+			return (this.message != null) ? this.message.replaceAll("\\d+([.,]\\d+)?\\s*%?", "").trim() : null;
+		}
+	}
+
+
+	private static final int STARTUP_ERROR_CODE = -28;
+
+	private static final int MAINNET_RPC_PORT = 1979;
+	private static final int TESTNET_RPC_PORT = 11979;
+
+	private static final int CONNECT_TIMEOUT = 500;
+	private static final int READ_TIMEOUT    = 10 * 1000;
+
+	private static final Pattern PERCENT = Pattern.compile("(\\d{1,3})(?:[.,]\\d+)?\\s*%");
+
+	private static final byte[] REQUEST =
+		"{\"jsonrpc\":\"1.0\",\"id\":\"startup\",\"method\":\"getblockcount\",\"params\":[]}".
+		getBytes(StandardCharsets.US_ASCII);
+
+	private URL url;
+	private String authorization; // null - read from the cookie file for every probe
+	private File cookieFile;
+
+
+	public DaemonReadinessProbe(int port, String authorization, File cookieFile)
+		throws IOException
+	{
+		this.url = new URL("http", "127.0.0.1", port, "/");
+		this.authorization = authorization;
+		this.cookieFile = cookieFile;
+	}
+
+
+	/**
+	 * Creates a probe from the daemon configuration.
+	 *
+	 * @return the probe, or null if the configuration file is missing.
+	 */
+	public static DaemonReadinessProbe fromConfiguration()
+		throws IOException
+	{
+		File blockchainDir = new File(OSUtil.getBlockchainDirectory());
+		File confFile = new File(blockchainDir, "bitcoinz.conf");
+		if (!confFile.isFile())
+		{
+			return null;
+		}
+
+		Properties conf = new Properties();
+		try (InputStream in = new FileInputStream(confFile))
+		{
+			conf.load(in);
+		}
+
+		boolean testnet = "1".equals(conf.getProperty("testnet", "0").trim());
+		int port = Integer.getInteger("bitcoinz.rpc.port",
+			Integer.parseInt(conf.getProperty("rpcport", String.valueOf(
+				testnet ? TESTNET_RPC_PORT : MAINNET_RPC_PORT)).trim()));
+
+		String user = conf.getProperty("rpcuser");
+		String password = conf.getProperty("rpcpassword");
+		String authorization = null;
+		if ((user != null) && (password != null))
+		{
+			authorization = basicAuthorization(user.trim() + ":" + password.trim());
+		}
+
+		File cookieFile = new File(testnet ? new File(blockchainDir, "testnet3") : blockchainDir, ".cookie");
+		return new DaemonReadinessProbe(port, authorization, cookieFile);
+	}
+
+
+	/**
+	 * Calls the daemon once.
+	 *
+	 * @return the state of the daemon.
+	 *
+	 * @throws IOException if the daemon answers in an unexpected way, e.g. rejects the credentials.
+	 */
+	public Result probe()
+		throws IOException
+	{
+		String authorization = this.authorization;
+		if (authorization == null)
+		{
+			if (!this.cookieFile.isFile())
+			{
+				// The daemon creates the cookie when its RPC server starts
+				return new Result(STATE.DOWN, null);
+			}
+			authorization = basicAuthorization(
+				new String(Files.readAllBytes(this.cookieFile.toPath()), StandardCharsets.UTF_8).trim());
+		}
+
+		HttpURLConnection connection = (HttpURLConnection)this.url.openConnection();
+		boolean connected = false;
+		try
+		{
+			connection.setConnectTimeout(CONNECT_TIMEOUT);
+			connection.setReadTimeout(READ_TIMEOUT);
+			connection.setDoOutput(true);
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("Content-Type", "application/json");
+			connection.setRequestProperty("Authorization", authorization);
+
+			try (OutputStream out = connection.getOutputStream())
+			{
+				connected = true;
+				out.write(REQUEST);
+			}
+
+			int code = connection.getResponseCode();
+			if ((code == HttpURLConnection.HTTP_UNAUTHORIZED) || (code == HttpURLConnection.HTTP_FORBIDDEN))
+			{
+				throw new IOException("RPC credentials rejected by bitcoinzd, HTTP " + code);
+			}
+
+			// Errors come with HTTP 500 and a JSON body
+			InputStream in = (code < 400) ? connection.getInputStream() : connection.getErrorStream();
+			if (in == null)
+			{
+				throw new IOException("Unexpected HTTP response " + code + " from bitcoinzd");
+			}
+
+			JsonObject response;
+			try
+			{
+				response = Json.parse(in).asObject();
+			} catch (ParseException | UnsupportedOperationException e)
+			{
+				throw new IOException("Unexpected response from bitcoinzd, HTTP " + code, e);
+			} finally
+			{
+				in.close();
+			}
+
+			JsonValue error = response.get("error");
+			if ((error != null) && error.isObject() &&
+			    (error.asObject().getInt("code", 0) == STARTUP_ERROR_CODE))
+			{
+				return new Result(STATE.WARMING_UP, error.asObject().getString("message", "???"));
+			}
+
+			// Any other answer means the RPC server processes calls
+			return new Result(STATE.READY, null);
+		} catch (ConnectException ce)
+		{
+			return new Result(STATE.DOWN, null);
+		} catch (SocketTimeoutException ste)
+		{
+			// Not accepted in time, or accepted and busy
+			return new Result(connected ? STATE.WARMING_UP : STATE.DOWN, null);
+		} finally
+		{
+			connection.disconnect();
+		}
+	}
+
+
+	private static String basicAuthorization(String userAndPassword)
+	{
+		return "Basic " + Base64.getEncoder().encodeToString(userAndPassword.getBytes(StandardCharsets.UTF_8));
+	}
+}
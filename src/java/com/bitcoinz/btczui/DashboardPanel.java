@@ -34,8 +34,15 @@ import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -45,6 +52,9 @@ import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -58,6 +68,7 @@ import com.bitcoinz.btczui.BTCZClientCaller.WalletBalance;
 import com.bitcoinz.btczui.BTCZClientCaller.WalletCallException;
 import com.bitcoinz.btczui.BTCZInstallationObserver.DAEMON_STATUS;
 import com.bitcoinz.btczui.BTCZInstallationObserver.DaemonInfo;
+import com.bitcoinz.btczui.ResourceHistory.SERIES;
 
 
 /**
@@ -92,12 +103,35 @@ public class DashboardPanel
 	private String[][] lastTransactionsData = null;
 	private DataGatheringThread<String[][]> transactionGatheringThread = null;
 
+	// Shown until the live data replaces it - null once it is replaced
+	private WalletSnapshot staleBalanceSnapshot = null;
+	private WalletSnapshot staleTransactionsSnapshot = null;
+	private JLabel transactionHeadingLabel = null;
+
+	// Resource samples of the daemon and the wallet - one per daemon status gathering
+	private ResourceHistory resourceHistory =
+		new ResourceHistory(Integer.getInteger("bitcoinz.resource.history.samples", 1800));
+	private SparklineChart resourceChart = null;
+	private long lastWalletCPUNanos = -1;
+	private long lastWalletSampleNanos;
+
+	// Speed of the sync over the last 5 minutes - for the ETA
+	private SyncEstimator syncEstimator = new SyncEstimator(5 * 60 * 1000);
+
+	// Follows the bitcoinzd log - tells the block height between the RPC gatherings
+	private DebugLogTailer debugLog = null;
+	private boolean debugLogFailureReported = false;
+	// Blocks read from the log until this time may be of an earlier run of bitcoinzd
+	private long debugLogBaseline = -1;
+	private DataGatheringThread<DebugLogTailer.Status> debugLogGatheringThread = null;
+
 
 	public DashboardPanel(JFrame parentFrame,
 			              BTCZInstallationObserver installationObserver,
 			              BTCZClientCaller clientCaller,
 			              StatusUpdateErrorReporter errorReporter,
-			              BackupTracker backupTracker)
+			              BackupTracker backupTracker,
+			              WalletSnapshot snapshot)
 		throws IOException, InterruptedException, WalletCallException
 	{
 		this.parentFrame          = parentFrame;
@@ -131,8 +165,7 @@ public class DashboardPanel
 		tempPanel.setToolTipText("Powered by BitcoinZ");
 		balanceStatusPanel.add(tempPanel, BorderLayout.WEST);
 		// TODO: use relative size - only!
-		JLabel transactionHeadingLabel = new JLabel(
-			"<html><span style=\"font-size:2em\"><br/></span>Transactions:</html>");
+		transactionHeadingLabel = new JLabel();
 		tempPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 1, 1));
 		transactionHeadingLabel.setFont(new Font("Helvetica", Font.BOLD, 19));
 		tempPanel.add(transactionHeadingLabel);
@@ -144,8 +177,18 @@ public class DashboardPanel
 
 		dashboard.add(balanceStatusPanel, BorderLayout.NORTH);
 
-		// Table of transactions
-		lastTransactionsData = getTransactionsDataFromWallet();
+		// Table of transactions - the one of the snapshot if available, the live one takes time
+		if (snapshot != null)
+		{
+			this.staleBalanceSnapshot = snapshot;
+			this.staleTransactionsSnapshot = snapshot;
+			lastTransactionsData = snapshot.transactions;
+			this.showWalletBalance(snapshot.balance);
+		} else
+		{
+			lastTransactionsData = getTransactionsDataFromWallet();
+		}
+		this.updateTransactionHeadingLabel();
 		dashboard.add(transactionsTablePane = new JScrollPane(
 				         transactionsTable = this.createTransactionsTable(lastTransactionsData)),
 				      BorderLayout.CENTER);
@@ -158,6 +201,35 @@ public class DashboardPanel
 		daemonStatusPanel.add(daemonStatusLabel = new JLabel());
 		installationStatusPanel.add(daemonStatusPanel, BorderLayout.WEST);
 
+		PresentationPanel resourcePanel = new PresentationPanel();
+		resourcePanel.setLayout(new BorderLayout(3, 3));
+		resourcePanel.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+		final JComboBox<SERIES> seriesComboBox = new JComboBox<SERIES>(SERIES.values());
+		resourcePanel.add(seriesComboBox, BorderLayout.NORTH);
+		resourcePanel.add(resourceChart = new SparklineChart(this.resourceHistory, SERIES.DAEMON_CPU),
+		                  BorderLayout.CENTER);
+		JButton exportResourcesButton = new JButton("Export CSV...");
+		resourcePanel.add(exportResourcesButton, BorderLayout.SOUTH);
+		installationStatusPanel.add(resourcePanel, BorderLayout.CENTER);
+
+		seriesComboBox.addActionListener(new ActionListener()
+		{
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				DashboardPanel.this.resourceChart.setSeries((SERIES)seriesComboBox.getSelectedItem());
+			}
+		});
+
+		exportResourcesButton.addActionListener(new ActionListener()
+		{
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				DashboardPanel.this.exportResourceHistory();
+			}
+		});
+
 		PresentationPanel networkAndBlockchainPanel = new PresentationPanel();
 		networkAndBlockchainPanel.add(networkAndBlockchainLabel = new JLabel());
 		installationStatusPanel.add(networkAndBlockchainPanel, BorderLayout.EAST);
@@ -173,6 +245,7 @@ public class DashboardPanel
 				{
 					long start = System.currentTimeMillis();
 					DaemonInfo daemonInfo = DashboardPanel.this.installationObserver.getDaemonInfo();
+					DashboardPanel.this.recordResourceSample(daemonInfo);
 					long end = System.currentTimeMillis();
 					Log.info("Gathering of dashboard daemon status data done in " + (end - start) + "ms." );
 
@@ -189,6 +262,7 @@ public class DashboardPanel
 				try
 				{
 					DashboardPanel.this.updateDaemonStatusLabel();
+					DashboardPanel.this.resourceChart.repaint();
 				} catch (Exception ex)
 				{
 					Log.error("Unexpected error: ", ex);
@@ -260,7 +334,7 @@ public class DashboardPanel
 					return data;
 				}
 			},
-			this.errorReporter, 20000);
+			this.errorReporter, 20000, (snapshot != null));
 		this.threads.add(this.transactionGatheringThread);
 
 		ActionListener alTransactions = new ActionListener() {
@@ -299,6 +373,20 @@ public class DashboardPanel
 			this.errorReporter, 10000, true);
 		this.threads.add(this.netInfoGatheringThread);
 
+		// Thread to follow the bitcoinzd log - no RPC calls, so it may run often
+		this.debugLog = new DebugLogTailer(DebugLogTailer.getDebugLogFile(installationObserver.isOnTestNet()));
+		this.debugLogGatheringThread = new DataGatheringThread<DebugLogTailer.Status>(
+			new DataGatheringThread.DataGatherer<DebugLogTailer.Status>()
+			{
+				public DebugLogTailer.Status gatherData()
+					throws Exception
+				{
+					return DashboardPanel.this.gatherDebugLogStatus();
+				}
+			},
+			this.errorReporter, 2000, true);
+		this.threads.add(this.debugLogGatheringThread);
+
 		ActionListener alNetAndBlockchain = new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e)
@@ -327,6 +415,109 @@ public class DashboardPanel
 	}
 
 
+	// May be null - if not gathered yet
+	public Integer getBlockCount()
+	{
+		NetworkAndBlockchainInfo info = this.netInfoGatheringThread.getLastData();
+		return (info != null) ? info.blockCount : null;
+	}
+
+
+	// May be null - if not gathered yet
+	public WalletBalance getLiveWalletBalance()
+	{
+		return this.walletBalanceGatheringThread.getLastData();
+	}
+
+
+	// May be null - if only the snapshot data is shown
+	public String[][] getLiveTransactionsData()
+	{
+		return (this.staleTransactionsSnapshot == null) ? this.lastTransactionsData : null;
+	}
+
+
+	// Called in the daemon status gathering thread
+	private void recordResourceSample(DaemonInfo daemonInfo)
+	{
+		double[] sample = ResourceHistory.newSample();
+
+		if (daemonInfo.status == DAEMON_STATUS.RUNNING)
+		{
+			sample[SERIES.DAEMON_CPU.ordinal()]      = daemonInfo.cpuPercentage;
+			sample[SERIES.DAEMON_RESIDENT.ordinal()] = daemonInfo.residentSizeMB;
+			sample[SERIES.DAEMON_VIRTUAL.ordinal()]  = daemonInfo.virtualSizeMB;
+			if ((daemonInfo.ioReadKBPerSecond >= 0) && (daemonInfo.ioWriteKBPerSecond >= 0))
+			{
+				sample[SERIES.DAEMON_IO_READ.ordinal()]  = daemonInfo.ioReadKBPerSecond;
+				sample[SERIES.DAEMON_IO_WRITE.ordinal()] = daemonInfo.ioWriteKBPerSecond;
+			}
+		}
+
+		Runtime runtime = Runtime.getRuntime();
+		sample[SERIES.WALLET_HEAP.ordinal()] = (runtime.totalMemory() - runtime.freeMemory()) / (1024d * 1024d);
+
+		// The process CPU time is only available on JVMs that provide the com.sun.management extensions
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean)
+		{
+			long cpuNanos = ((com.sun.management.OperatingSystemMXBean)os).getProcessCpuTime();
+			long nowNanos = System.nanoTime();
+			if ((this.lastWalletCPUNanos >= 0) && (cpuNanos >= 0) && (nowNanos > this.lastWalletSampleNanos))
+			{
+				double cpuPercentage = (cpuNanos - this.lastWalletCPUNanos) * 100d / (nowNanos - this.lastWalletSampleNanos);
+				sample[SERIES.WALLET_CPU.ordinal()] = Math.round(cpuPercentage * 10) / 10d;
+			}
+
+			this.lastWalletCPUNanos = cpuNanos;
+			this.lastWalletSampleNanos = nowNanos;
+		}
+
+		// The thread may not be created yet when the first sample is taken
+		DataGatheringThread<NetworkAndBlockchainInfo> netInfoThread = this.netInfoGatheringThread;
+		NetworkAndBlockchainInfo info = (netInfoThread != null) ? netInfoThread.getLastData() : null;
+		if (info != null)
+		{
+			sample[SERIES.RPC_LATENCY.ordinal()]  = info.rpcLatencyMillis;
+			sample[SERIES.BLOCK_HEIGHT.ordinal()] = info.blockCount;
+		}
+
+		this.resourceHistory.add(System.currentTimeMillis(), sample);
+	}
+
+
+	private void exportResourceHistory()
+	{
+		try
+		{
+			JFileChooser fileChooser = new JFileChooser();
+			fileChooser.setDialogTitle("Export resource history to CSV file...");
+			fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+			fileChooser.setCurrentDirectory(OSUtil.getUserHomeDirectory());
+			fileChooser.setSelectedFile(new File(OSUtil.getUserHomeDirectory(), "bitcoinz-resources.csv"));
+
+			if (fileChooser.showSaveDialog(this.parentFrame) != JFileChooser.APPROVE_OPTION)
+			{
+				return;
+			}
+
+			File f = fileChooser.getSelectedFile();
+			try (Writer out = new BufferedWriter(
+			         new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8)))
+			{
+				this.resourceHistory.writeCSV(out);
+			}
+
+			Log.info("Resource history ({0} samples) exported to {1}",
+			         String.valueOf(this.resourceHistory.size()), f.getAbsolutePath());
+		} catch (Exception e)
+		{
+			Log.error("Unexpected error: ", e);
+			this.errorReporter.reportError(e, false);
+		}
+	}
+
+
 	private void updateDaemonStatusLabel()
 		throws IOException, InterruptedException, WalletCallException
 	{
@@ -359,11 +550,17 @@ public class DashboardPanel
 			cpuPercentage = ", CPU: " + daemonInfo.cpuPercentage + "%";
 		}
 
+		String io = "";
+		if ((daemonInfo.ioReadKBPerSecond >= 0) && (daemonInfo.ioWriteKBPerSecond >= 0))
+		{
+			io = ", Disk read/write: " + daemonInfo.ioReadKBPerSecond + "/" + daemonInfo.ioWriteKBPerSecond + " KB/s";
+		}
+
 		if (daemonInfo.status == DAEMON_STATUS.RUNNING)
 		{
 			runtimeInfo = "<span style=\"font-size:0.8em\">" +
 					      "Resident: " + daemonInfo.residentSizeMB + " MB" + virtual +
-					       cpuPercentage + "</span>";
+					       cpuPercentage + io + "</span>";
 		}
 
 		// TODO: what if BTCZ directory is non-default...
@@ -402,6 +599,57 @@ public class DashboardPanel
 	}
 
 
+	/**
+	 * Reads the new lines of the bitcoinzd log and feeds the sync speed estimate with the
+	 * highest known block. A log that cannot be read is not an error - the RPC data is enough.
+	 *
+	 * @return the status from the log or null if it cannot be read or has no block read after
+	 *         the first poll yet.
+	 */
+	private DebugLogTailer.Status gatherDebugLogStatus()
+	{
+		DebugLogTailer.Status status = null;
+		try
+		{
+			status = this.debugLog.poll();
+			this.debugLogFailureReported = false;
+			if (this.debugLogBaseline < 0)
+			{
+				this.debugLogBaseline = System.currentTimeMillis();
+			}
+			// The tail read first may be from before a restart or a reindex - the RPC height is used then
+			if (status.tipUpdated <= this.debugLogBaseline)
+			{
+				status = null;
+			}
+		} catch (IOException ioe)
+		{
+			if (!this.debugLogFailureReported)
+			{
+				Log.warning("Cannot follow the bitcoinzd log: {0}", ioe.toString());
+				this.debugLogFailureReported = true;
+			}
+		}
+
+		int height = -1;
+		NetworkAndBlockchainInfo info = this.netInfoGatheringThread.getLastData();
+		if (info != null)
+		{
+			height = info.blockCount;
+		}
+		if ((status != null) && (status.height > height))
+		{
+			height = status.height;
+		}
+		if (height >= 0)
+		{
+			this.syncEstimator.addSample(System.currentTimeMillis(), height);
+		}
+
+		return status;
+	}
+
+
 	private void updateNetworkAndBlockchainLabel()
 		throws IOException, InterruptedException
 	{
@@ -413,6 +661,16 @@ public class DashboardPanel
 			return;
 		}
 
+		// The log is more recent than the last RPC gathering while catching up
+		int blockCount = info.blockCount;
+		double verificationProgress = info.verificationProgress;
+		DebugLogTailer.Status logStatus = this.debugLogGatheringThread.getLastData();
+		if ((logStatus != null) && (logStatus.height > blockCount))
+		{
+			blockCount = logStatus.height;
+			verificationProgress = logStatus.progress;
+		}
+
 		// TODO: Get the start date right after BTCZ release - from first block!!!
 		final Date startDate = new Date("06 Nov 2016 02:00:00 GMT");
 		final Date nowDate = new Date(System.currentTimeMillis());
@@ -482,12 +740,31 @@ public class DashboardPanel
 			netColor = "green";
 		}
 
+		// Progress and estimated time while catching up
+		String syncProgress = "";
+		if (!percentage.equals("100"))
+		{
+			int networkHeight = SyncEstimator.estimateNetworkHeight(
+				blockCount, info.headerCount, info.lastBlockDate.getTime(), nowDate.getTime());
+			double blocksPerSecond = this.syncEstimator.getBlocksPerSecond();
+			long secondsRemaining = this.syncEstimator.getSecondsRemaining(networkHeight);
+
+			DecimalFormat df = new DecimalFormat("##0.#");
+			syncProgress =
+				"<span style=\"font-size:0.8em\">Block " + blockCount + " of ~" + networkHeight +
+				((verificationProgress >= 0) ?
+					", verified: " + df.format(verificationProgress * 100d) + "%" : "") +
+				((blocksPerSecond > 0) ? ", " + df.format(blocksPerSecond) + " blocks/s" : "") +
+				((secondsRemaining > 0) ? ", ETA: " + SyncEstimator.formatDuration(secondsRemaining) : "") +
+				"</span><br/>";
+		}
+
 		String text =
 			"<html> " +
 		    "Blockchain synchronized: <span style=\"font-weight:bold\">" +
 			percentage + "% </span> " + tick + " <br/>" +
 			"Up to: <span style=\"font-size:0.8em;font-weight:bold\">" +
-		    info.lastBlockDate.toLocaleString() + "</span>  <br/> " +
+		    info.lastBlockDate.toLocaleString() + "</span>  <br/> " + syncProgress +
 			"<span style=\"font-size:1px\"><br/></span>" +
 			"Network: <span style=\"font-weight:bold\">" + info.numConnections + " connections</span>" +
 			"<span style=\"font-size:1.7em;color:" + netColor + "\">" + tick + "</span>"; // connections
@@ -506,6 +783,18 @@ public class DashboardPanel
 			return;
 		}
 
+		this.staleBalanceSnapshot = null;
+		this.showWalletBalance(balance);
+
+		if (this.parentFrame.isVisible())
+		{
+			this.backupTracker.handleWalletBalanceUpdate(balance.totalBalance);
+		}
+	}
+
+
+	private void showWalletBalance(WalletBalance balance)
+	{
 		// Format double numbers - else sometimes we get exponential notation 1E-4 BTCZ
 		DecimalFormat df = new DecimalFormat("######,##0.00######");
 
@@ -521,6 +810,13 @@ public class DashboardPanel
 		String color2 = privateBalance.equals(privateUCBalance)         ? "" : "color:#cc3300;";
 		String color3 = totalBalance.equals(totalUCBalance)             ? "" : "color:#cc3300;";
 
+		String staleNote = "";
+		if (this.staleBalanceSnapshot != null)
+		{
+			staleNote = "<span style=\"font-size:0.8em;color:gray\">Last known balance (" +
+			            this.staleBalanceSnapshot.describe() + ") - updating...</span>";
+		}
+
 		String text =
 			"<html>" +
 		    "<span style=\"font-family:monospace;font-size:1em;" + color1 + "\">Transparent balance: <span style=\"font-size:1.1em;\">" +
@@ -529,7 +825,7 @@ public class DashboardPanel
 		    	privateUCBalance + " BTCZ </span></span><br/> " +
 			"<span style=\"font-family:monospace;;font-size:1em;" + color3 + "\">Total (Z+T) balance: <span style=\"font-weight:bold;font-size:1.35em;\">" +
 		    	totalUCBalance + " BTCZ </span></span>" +
-			"<br/>  </html>";
+			"<br/>" + staleNote + "  </html>";
 
 		this.walletBalanceLabel.setText(text);
 
@@ -549,11 +845,20 @@ public class DashboardPanel
 		}
 
 		this.walletBalanceLabel.setToolTipText(toolTip);
+	}
 
-		if (this.parentFrame.isVisible())
+
+	private void updateTransactionHeadingLabel()
+	{
+		String staleNote = "";
+		if (this.staleTransactionsSnapshot != null)
 		{
-			this.backupTracker.handleWalletBalanceUpdate(balance.totalBalance);
+			staleNote = " <span style=\"font-size:0.6em;font-weight:normal;color:gray\">(" +
+			            this.staleTransactionsSnapshot.describe() + ")</span>";
 		}
+
+		this.transactionHeadingLabel.setText(
+			"<html><span style=\"font-size:2em\"><br/></span>Transactions:" + staleNote + "</html>");
 	}
 
 
@@ -579,6 +884,12 @@ public class DashboardPanel
 
 		lastTransactionsData = newTransactionsData;
 
+		if (this.staleTransactionsSnapshot != null)
+		{
+			this.staleTransactionsSnapshot = null;
+			this.updateTransactionHeadingLabel();
+		}
+
 		this.validate();
 		this.repaint();
 	}
@@ -0,0 +1,302 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Follows the debug.log of bitcoinzd to tell its progress without RPC calls - which are not
+ * answered, or answered slowly, while the daemon loads, reindexes or catches up. Every poll
+ * reads only what was appended since the previous one, with positional reads, and parses only
+ * the last "UpdateTip" and init message lines of it. A log that is truncated or replaced by a
+ * new file (rotated) is read again from its start.
+ *
+ * The file is opened for each poll only, so that it may be rotated or removed meanwhile.
+ */
+public class DebugLogTailer
+{
+	/**
+	 * What is known from the log.
+	 */
+	public static class Status
+	{
+		public int    height = -1;          // Of the last UpdateTip, -1 if none seen
+		public double progress = -1;        // 0..1 of the last UpdateTip, -1 if none seen
+		public Date   tipDate;              // Block time of the last UpdateTip
+		public long   tipUpdated = -1;      // Time the last UpdateTip was read, -1 if never
+		public String activity;             // Last init message, e.g. "Loading block index..."
+		public long   activityUpdated = -1; // Time the last init message was read, -1 if never
+	}
+
+
+	// On the first poll only this much of the end of an existing log is read
+	private static final int TAIL_START = 1024 * 1024;
+	private static final int BUFFER_SIZE = 256 * 1024;
+
+	private static final byte[] UPDATE_TIP   = "UpdateTip:".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] INIT_MESSAGE = "init message: ".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] REINDEXING   = "Reindexing block file".getBytes(StandardCharsets.US_ASCII);
+
+	private static final Pattern HEIGHT   = Pattern.compile("\\bheight=(\\d+)");
+	private static final Pattern PROGRESS = Pattern.compile("\\bprogress=([0-9.]+)");
+	private static final Pattern DATE     = Pattern.compile("\\bdate='?(\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}:\\d{2})");
+
+	private File logFile;
+	private long position;
+	private Object fileKey;
+	private boolean firstPoll;
+	private ByteBuffer buffer;
+	private Status status;
+
+
+	public DebugLogTailer(File logFile)
+	{
+		this.logFile = logFile;
+		this.position = 0;
+		this.fileKey = null;
+		this.firstPoll = true;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.status = new Status();
+	}
+
+
+	/**
+	 * @param testNet whether the daemon runs on test net.
+	 *
+	 * @return the debug.log of the daemon in the default blockchain directory.
+	 */
+	public static File getDebugLogFile(boolean testNet)
+		throws IOException
+	{
+		File blockchainDir = new File(OSUtil.getBlockchainDirectory());
+		return new File(testNet ? new File(blockchainDir, "testnet3") : blockchainDir, "debug.log");
+	}
+
+
+	/**
+	 * Reads what was appended to the log since the previous poll.
+	 *
+	 * @return a copy of the status after reading.
+	 */
+	public synchronized Status poll()
+		throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(this.logFile.toPath(), StandardOpenOption.READ))
+		{
+			BasicFileAttributes attributes = Files.readAttributes(this.logFile.toPath(), BasicFileAttributes.class);
+			long size = channel.size();
+			Object key = attributes.fileKey();
+
+			boolean skipPartialLine = false;
+			if (this.firstPoll)
+			{
+				this.firstPoll = false;
+				if (size > TAIL_START)
+				{
+					this.position = size - TAIL_START;
+					skipPartialLine = true;
+				}
+			} else if ((size < this.position) || ((key != null) && (!key.equals(this.fileKey))))
+			{
+				Log.info("bitcoinzd log {0} was truncated or rotated - reading it from the start",
+				         this.logFile.getAbsolutePath());
+				this.position = 0;
+			}
+			this.fileKey = key;
+
+			this.readFrom(channel, size, skipPartialLine);
+		} catch (NoSuchFileException nsfe)
+		{
+			// Not created yet, or rotated just now
+			this.position = 0;
+			this.fileKey = null;
+		}
+
+		Status copy = new Status();
+		copy.height          = this.status.height;
+		copy.progress        = this.status.progress;
+		copy.tipDate         = this.status.tipDate;
+		copy.tipUpdated      = this.status.tipUpdated;
+		copy.activity        = this.status.activity;
+		copy.activityUpdated = this.status.activityUpdated;
+		return copy;
+	}
+
+
+	private void readFrom(FileChannel channel, long size, boolean skipPartialLine)
+		throws IOException
+	{
+		byte[] data = this.buffer.array();
+		while (this.position < size)
+		{
+			this.buffer.clear();
+			int read = channel.read(this.buffer, this.position);
+			if (read <= 0)
+			{
+				break;
+			}
+
+			int lineStart = 0;
+			int lastUpdateTip = -1, lastUpdateTipEnd = -1;
+			int lastActivity = -1, lastActivityEnd = -1;
+			for (int i = 0; i < read; i++)
+			{
+				if (data[i] != '\n')
+				{
+					continue;
+				}
+
+				if (skipPartialLine)
+				{
+					skipPartialLine = false;
+				} else if (indexOf(data, lineStart, i, UPDATE_TIP) >= 0)
+				{
+					lastUpdateTip = lineStart;
+					lastUpdateTipEnd = i;
+				} else if ((indexOf(data, lineStart, i, INIT_MESSAGE) >= 0) ||
+				           (indexOf(data, lineStart, i, REINDEXING) >= 0))
+				{
+					lastActivity = lineStart;
+					lastActivityEnd = i;
+				}
+
+				lineStart = i + 1;
+			}
+
+			// Only the latest lines of the chunk matter
+			if (lastUpdateTip >= 0)
+			{
+				this.parseUpdateTip(new String(data, lastUpdateTip, lastUpdateTipEnd - lastUpdateTip, StandardCharsets.ISO_8859_1));
+			}
+			if (lastActivity >= 0)
+			{
+				this.parseActivity(new String(data, lastActivity, lastActivityEnd - lastActivity, StandardCharsets.ISO_8859_1));
+			}
+
+			// A partial line at the end is read again - unless it fills the whole buffer
+			long chunkEnd = this.position + read;
+			if ((lineStart == 0) && (read == data.length))
+			{
+				lineStart = read;
+			}
+			this.position += lineStart;
+			// Only a partial line at the end of the file waits for the next poll
+			if ((lineStart < read) && ((chunkEnd >= size) || (lineStart == 0)))
+			{
+				break;
+			}
+		}
+	}
+
+
+	private void parseUpdateTip(String line)
+	{
+		Matcher height = HEIGHT.matcher(line);
+		if (!height.find())
+		{
+			return;
+		}
+
+		this.status.height = Integer.parseInt(height.group(1));
+
+		Matcher progress = PROGRESS.matcher(line);
+		if (progress.find())
+		{
+			try
+			{
+				this.status.progress = Math.min(1d, Double.parseDouble(progress.group(1)));
+			} catch (NumberFormatException nfe)
+			{
+				// Keep the previous progress
+			}
+		}
+
+		Matcher date = DATE.matcher(line);
+		if (date.find())
+		{
+			try
+			{
+				SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+				format.setTimeZone(TimeZone.getTimeZone("UTC"));
+				this.status.tipDate = format.parse(date.group(1).replace('T', ' '));
+			} catch (ParseException pe)
+			{
+				// Keep the previous date
+			}
+		}
+
+		this.status.tipUpdated = System.currentTimeMillis();
+	}
+
+
+	private void parseActivity(String line)
+	{
+		int start = line.indexOf("init message: ");
+		String activity = (start >= 0) ? line.substring(start + "init message: ".length()) :
+			line.substring(line.indexOf("Reindexing block file"));
+		this.status.activity = activity.trim();
+		this.status.activityUpdated = System.currentTimeMillis();
+	}
+
+
+	// Index of a pattern within data[from, to), -1 if not found
+	private static int indexOf(byte[] data, int from, int to, byte[] pattern)
+	{
+		int last = to - pattern.length;
+		outer:
+		for (int i = from; i <= last; i++)
+		{
+			for (int j = 0; j < pattern.length; j++)
+			{
+				if (data[i + j] != pattern[j])
+				{
+					continue outer;
+				}
+			}
+			return i;
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,149 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.awt.BorderLayout;
+
+import javax.swing.Icon;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JTabbedPane;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+
+/**
+ * A wallet tab whose panel is created only when the tab is selected for the first time - or
+ * when the panel is needed otherwise. Until then the tab holds an empty container, and no
+ * gathering threads or RPC calls of the panel are started.
+ *
+ * Used in the event dispatch thread only.
+ *
+ * @param <T> the type of panel shown in the tab.
+ */
+public class LazyTab<T extends JComponent>
+{
+	/**
+	 * Creates the panel of the tab.
+	 *
+	 * @param <T> the type of panel shown in the tab.
+	 */
+	public static interface PanelFactory<T>
+	{
+		T createPanel()
+			throws Exception;
+	}
+
+
+	private String title;
+	private PanelFactory<T> factory;
+	private StatusUpdateErrorReporter errorReporter;
+	private JPanel container;
+	private T panel;
+
+
+	/**
+	 * Adds the tab - with an empty container - to a tabbed pane.
+	 *
+	 * @param tabs the tabbed pane to add the tab to.
+	 * @param title the title of the tab.
+	 * @param icon the icon of the tab.
+	 * @param factory creates the panel when it is needed.
+	 * @param errorReporter reports a failure to create the panel on selection of the tab.
+	 */
+	public LazyTab(final JTabbedPane tabs, String title, Icon icon, PanelFactory<T> factory,
+	               StatusUpdateErrorReporter errorReporter)
+	{
+		this.title = title.trim();
+		this.factory = factory;
+		this.errorReporter = errorReporter;
+		this.container = new JPanel(new BorderLayout(0, 0));
+		this.panel = null;
+
+		tabs.addTab(title, icon, this.container);
+		tabs.addChangeListener(new ChangeListener()
+		{
+			@Override
+			public void stateChanged(ChangeEvent e)
+			{
+				if (tabs.getSelectedComponent() == LazyTab.this.container)
+				{
+					try
+					{
+						LazyTab.this.get();
+					} catch (Exception ex)
+					{
+						Log.error("Unexpected error: ", ex);
+						LazyTab.this.errorReporter.reportError(ex, false);
+					}
+				}
+			}
+		});
+	}
+
+
+	/**
+	 * Returns the panel of the tab, creating it if this has not been done yet.
+	 *
+	 * @return the panel of the tab.
+	 */
+	public T get()
+		throws Exception
+	{
+		if (this.panel == null)
+		{
+			long start = System.currentTimeMillis();
+			this.panel = this.factory.createPanel();
+			this.container.add(this.panel, BorderLayout.CENTER);
+			this.container.revalidate();
+			this.container.repaint();
+			Log.info("Tab \"{0}\" created in {1} ms", this.title, System.currentTimeMillis() - start);
+		}
+
+		return this.panel;
+	}
+
+
+	/**
+	 * @return the panel of the tab, or null if it has not been created yet.
+	 */
+	public T getIfCreated()
+	{
+		return this.panel;
+	}
+
+
+	/**
+	 * @return the component that is added to the tabbed pane.
+	 */
+	public JComponent getContainer()
+	{
+		return this.container;
+	}
+}
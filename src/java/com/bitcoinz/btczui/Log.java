@@ -28,36 +28,65 @@
  **********************************************************************************/
 package com.bitcoinz.btczui;
 
-import java.io.CharArrayWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
-import java.io.PrintWriter;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 public class Log
 {
-	private static PrintStream fileOut;
+	public static enum LEVEL
+	{
+		TRACE, DEBUG, INFO, WARNING, ERROR
+	};
+
+	// Messages below this level are discarded before any formatting
+	private static volatile int minimumLevel = LEVEL.TRACE.ordinal();
+
+	// Reused by each thread for formatting messages
+	private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+	private static final ThreadLocal<StringBuilder> formatBuffer = new ThreadLocal<StringBuilder>()
+	{
+		@Override
+		protected StringBuilder initialValue()
+		{
+			return new StringBuilder(256);
+		}
+	};
 
-	private static Set<String> oneTimeMessages = new HashSet<String>();
+	private static RollingLogFile fileOut;
+
+	// One time messages are remembered by a 64 bit hash - only the most recent ones
+	private static final int MAX_ONE_TIME_MESSAGES = 4096;
+	private static final long SUPPRESSED_REPORT_INTERVAL = 10L * 60L * 1000L;
+
+	private static Map<Long, Boolean> oneTimeMessages = new LinkedHashMap<Long, Boolean>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest)
+		{
+			return this.size() > MAX_ONE_TIME_MESSAGES;
+		}
+	};
+
+	private static long suppressedOneTimeMessages = 0;
+	private static long lastSuppressedReport = System.currentTimeMillis();
+
+	// Messages are written by a background thread - see AsyncLogWriter
+	private static AsyncLogWriter writer;
 
 	static
 	{
 		try
 		{
-			// Initialize log to a file
-			String settingsDir = OSUtil.getSettingsDirectory();
-			Date today = new Date();
-			String logFile = settingsDir + File.separator +
-			         "BitcoinZWallet_" +
-			         (int)(today.getYear() + 1900) + "_" +
-			         (int)(today.getMonth() + 1) + "_" +
-			         "debug.log";
-			fileOut = new PrintStream(new FileOutputStream(logFile, true));
+			// Initialize log to a file - rotation limits may be set as system properties
+			long megabyte = 1024L * 1024L;
+			fileOut = new RollingLogFile(
+				new File(OSUtil.getSettingsDirectory()),
+				Long.getLong("bitcoinz.log.max.file.mb", 20) * megabyte,
+				Integer.getInteger("bitcoinz.log.max.files", 10),
+				Long.getLong("bitcoinz.log.max.total.mb", 200) * megabyte);
 		}
 		catch (IOException ioe)
 		{
@@ -65,23 +94,103 @@ public class Log
 			System.out.println("Error in initializing file logging!!!");
 			ioe.printStackTrace();
 		}
+
+		// Minimum level may be set as a system property e.g. -Dbitcoinz.log.level=INFO
+		String level = System.getProperty("bitcoinz.log.level");
+		if (level != null)
+		{
+			try
+			{
+				setLevel(LEVEL.valueOf(level.trim().toUpperCase()));
+			} catch (IllegalArgumentException iae)
+			{
+				System.out.println("Unknown log level: " + level);
+			}
+		}
+
+		// Buffer size and overflow policy (BLOCK/DROP) may be set as system properties
+		AsyncLogWriter.OVERFLOW_POLICY overflowPolicy = AsyncLogWriter.OVERFLOW_POLICY.BLOCK;
+		try
+		{
+			overflowPolicy = AsyncLogWriter.OVERFLOW_POLICY.valueOf(
+				System.getProperty("bitcoinz.log.overflow", overflowPolicy.name()).trim().toUpperCase());
+		} catch (IllegalArgumentException iae)
+		{
+			System.out.println("Unknown log overflow policy - using: " + overflowPolicy);
+		}
+
+		writer = new AsyncLogWriter(
+			System.out, fileOut, Integer.getInteger("bitcoinz.log.buffer", 8192), overflowPolicy);
+
+		// Make sure buffered messages are written on any exit
+		Runtime.getRuntime().addShutdownHook(new Thread("LogShutdown")
+		{
+			@Override
+			public void run()
+			{
+				Log.shutdown();
+			}
+		});
+	}
+
+
+	/**
+	 * Writes all buffered messages and stops the background writer. Messages logged later
+	 * are written synchronously. May be called more than once.
+	 */
+	public static void shutdown()
+	{
+		reportSuppressedOneTimeMessages(true);
+		writer.close(5000);
+	}
+
+
+	/**
+	 * Sets the minimum level of messages that are logged. May be changed at any time.
+	 *
+	 * @param level the minimum level.
+	 */
+	public static void setLevel(LEVEL level)
+	{
+		minimumLevel = level.ordinal();
+	}
+
+
+	public static LEVEL getLevel()
+	{
+		return LEVEL.values()[minimumLevel];
 	}
 
+
+	/**
+	 * Checks if messages of a certain level are logged - for callers that need to do costly
+	 * work to prepare the arguments.
+	 *
+	 * @param level the level to check.
+	 *
+	 * @return true if messages of this level are logged.
+	 */
+	public static boolean isEnabled(LEVEL level)
+	{
+		return level.ordinal() >= minimumLevel;
+	}
+
+
 	public static void debug(String message, Object ... args)
 	{
-		printMessage("DEBUG", message, null, args);
+		printMessage(LEVEL.DEBUG, message, null, args);
 	}
 
 
 	public static void trace(String message, Object ... args)
 	{
-		printMessage("TRACE", message, null, args);
+		printMessage(LEVEL.TRACE, message, null, args);
 	}
 
 
 	public static void info(String message, Object ... args)
 	{
-		printMessage("INFO", message, null, args);
+		printMessage(LEVEL.INFO, message, null, args);
 	}
 
 
@@ -93,13 +202,13 @@ public class Log
 
 	public static void warning(String message, Throwable t, Object ... args)
 	{
-		printMessage("WARNING", message, t, args);
+		printMessage(LEVEL.WARNING, message, t, args);
 	}
 
 
 	public static void warningOneTime(String message, Object ... args)
 	{
-		printMessage(true, "WARNING", message, null, args);
+		printMessage(true, LEVEL.WARNING, message, null, args);
 	}
 
 
@@ -111,64 +220,146 @@ public class Log
 
 	public static void error(String message, Throwable t, Object ... args)
 	{
-		printMessage("ERROR", message, t, args);
+		printMessage(LEVEL.ERROR, message, t, args);
 	}
 
 
-	private static void printMessage(String messageClass, String message,
+	private static void printMessage(LEVEL level, String message,
                                      Throwable t, Object ... args)
 	{
-		printMessage(false, messageClass, message, t, args);
+		printMessage(false, level, message, t, args);
 	}
 
 
-	private static void printMessage(boolean oneTimeOnly, String messageClass, String message,
+	private static void printMessage(boolean oneTimeOnly, LEVEL level, String message,
 			                         Throwable t, Object ... args)
 	{
-		// TODO: Too much garbage collection
-		for (int i = 0; i < args.length; i++)
+		if (level.ordinal() < minimumLevel)
 		{
-			if (args[i] != null)
-			{
-				message = message.replace("{" + i  + "}", args[i].toString());
-			}
+			return;
 		}
-		message += " ";
+
+		message = format(message, args);
 
 		if (oneTimeOnly) // One time messages logged only once!
 		{
-			if (oneTimeMessages.contains(message))
+			Long hash = hash64(message);
+			synchronized (oneTimeMessages)
+			{
+				if (oneTimeMessages.put(hash, Boolean.TRUE) != null)
+				{
+					suppressedOneTimeMessages++;
+					message = null;
+				}
+			}
+
+			reportSuppressedOneTimeMessages(false);
+
+			if (message == null)
 			{
 				return;
+			}
+		}
+
+		AsyncLogWriter.LogEntry entry = new AsyncLogWriter.LogEntry();
+		entry.time = System.currentTimeMillis();
+		entry.threadName = Thread.currentThread().getName();
+		entry.messageClass = level.name();
+		entry.message = message;
+		entry.throwable = t;
+
+		writer.write(entry);
+	}
+
+
+	/**
+	 * Formats a message in a single pass - placeholders {0}, {1} ... are replaced with the
+	 * corresponding argument. Placeholders with no or a null argument are left as they are. A
+	 * space is appended at the end.
+	 *
+	 * @param message the message with placeholders.
+	 * @param args the arguments.
+	 *
+	 * @return the formatted message.
+	 */
+	public static String format(String message, Object ... args)
+	{
+		StringBuilder buffer = formatBuffer.get();
+		buffer.setLength(0);
+
+		int length = message.length();
+		int copied = 0;
+		int open = (args.length > 0) ? message.indexOf('{') : -1;
+		while (open >= 0)
+		{
+			// Parse the argument index
+			int pos = open + 1;
+			int index = 0;
+			while ((pos < length) && (pos - open <= 9) && (message.charAt(pos) >= '0') && (message.charAt(pos) <= '9'))
+			{
+				index = index * 10 + (message.charAt(pos) - '0');
+				pos++;
+			}
+
+			if ((pos > open + 1) && (pos < length) && (message.charAt(pos) == '}') &&
+				(index < args.length) && (args[index] != null))
+			{
+				buffer.append(message, copied, open);
+				buffer.append(args[index]);
+				copied = pos + 1;
+				open = message.indexOf('{', copied);
 			} else
 			{
-				oneTimeMessages.add(message);
+				open = message.indexOf('{', open + 1);
 			}
 		}
 
-		String prefix =
-			"[" + Thread.currentThread().getName() + "] " +
-		    "[" + (new Date()).toString() + "] ";
+		buffer.append(message, copied, length);
+		buffer.append(' ');
+
+		String result = buffer.toString();
+		if (buffer.capacity() > MAX_RETAINED_BUFFER)
+		{
+			formatBuffer.set(new StringBuilder(256));
+		}
+
+		return result;
+	}
 
-		messageClass = "[" + messageClass + "] ";
 
-		String throwable = "";
-		if (t != null)
+	// Logs how many one time messages were suppressed since the last report
+	private static void reportSuppressedOneTimeMessages(boolean force)
+	{
+		long suppressed;
+		synchronized (oneTimeMessages)
 		{
-			CharArrayWriter car = new CharArrayWriter(500);
-			PrintWriter pr = new PrintWriter(car);
-			pr.println();  // One line extra before the exception.
-			t.printStackTrace(pr);
-			pr.close();
-			throwable = new String(car.toCharArray());
+			long now = System.currentTimeMillis();
+			if ((suppressedOneTimeMessages == 0) ||
+				((!force) && (now - lastSuppressedReport < SUPPRESSED_REPORT_INTERVAL)))
+			{
+				return;
+			}
+
+			suppressed = suppressedOneTimeMessages;
+			suppressedOneTimeMessages = 0;
+			lastSuppressedReport = now;
 		}
 
-		System.out.println(prefix + messageClass + message + throwable);
+		printMessage(LEVEL.INFO, "{0} repeated one time messages were suppressed.", null, suppressed);
+	}
+
 
-		if (fileOut != null)
+	// 64 bit FNV-1a hash of a message
+	private static long hash64(String message)
+	{
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < message.length(); i++)
 		{
-			fileOut.println(prefix + messageClass + message + throwable);
-			fileOut.flush();
+			char c = message.charAt(i);
+			hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+			hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
 		}
+
+		return hash;
 	}
 }
@@ -0,0 +1,752 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Downloads large files over several HTTP connections at the same time. Every file is split in
+ * chunks that are fetched with HTTP Range requests, and the chunks of all files share one pool of
+ * connections, so the files are downloaded concurrently.
+ *
+ * The data for a target file X goes to X.part, and the number of bytes received for every chunk
+ * is recorded in X.part.state. An interrupted download resumes from there. X itself is only
+ * created when all chunks are complete. A server that does not support ranges gets a single
+ * connection per file, and such a download starts from zero every time.
+ *
+ * The SHA-256 digest of every file is computed while it downloads: the waiting thread hashes the
+ * contiguous part received so far, reading it back while it is still in the file system cache.
+ *
+ * The number of connections may be changed with the system property bitcoinz.download.connections.
+ */
+public class ParallelDownloader
+{
+	/**
+	 * Receives the progress of a download.
+	 */
+	public static interface ProgressListener
+	{
+		/**
+		 * Called periodically by the thread that waits for the download.
+		 *
+		 * @param bytesDone bytes of all files downloaded so far, including resumed ones.
+		 * @param bytesTotal total size of all files.
+		 *
+		 * @return false to cancel the download.
+		 */
+		boolean progress(long bytesDone, long bytesTotal);
+	}
+
+
+	/**
+	 * A file to download.
+	 */
+	public static class Download
+	{
+		public URL  url;
+		public File target;
+		public long size; // Expected size, the size reported by the server must match it
+
+		public String sha256; // Hex digest of the file, set when the download is complete
+
+
+		public Download(URL url, File target, long size)
+		{
+			this.url    = url;
+			this.target = target;
+			this.size   = size;
+		}
+	}
+
+
+	// Beginning of a state file - "BTCZDL01"
+	private static final long STATE_MAGIC = 0x4254435A444C3031L;
+	private static final int  STATE_HEADER_SIZE = 3 * 8;
+
+	// The state of a chunk is written after this many new bytes
+	private static final long STATE_UPDATE_BYTES = 1024 * 1024;
+
+	private static final int  MAX_ATTEMPTS         = 5;
+	private static final long RETRY_DELAY          = 2000;
+	private static final int  CONNECT_TIMEOUT      = 30 * 1000;
+	private static final int  READ_TIMEOUT         = 60 * 1000;
+	private static final long PROGRESS_INTERVAL    = 250;
+	private static final int  HASH_BUFFER_SIZE     = 1024 * 1024;
+	private static final String USER_AGENT         = "Wget/1.17.1 (linux-gnu)";
+
+	private int connections;
+	private long chunkSize;
+
+	private volatile boolean cancelled;
+
+
+	public ParallelDownloader()
+	{
+		this(Integer.getInteger("bitcoinz.download.connections", 4), 16 * 1024 * 1024);
+	}
+
+
+	/**
+	 * Creates a new downloader.
+	 *
+	 * @param connections maximum number of connections open at the same time, for all files.
+	 * @param chunkSize size of the ranges requested on one connection.
+	 */
+	public ParallelDownloader(int connections, long chunkSize)
+	{
+		this.connections = Math.max(1, connections);
+		this.chunkSize = Math.max(64 * 1024, chunkSize);
+	}
+
+
+	/**
+	 * Downloads the files and waits until all of them are complete. On failure or cancellation
+	 * the partial downloads are kept, to be resumed by the next call.
+	 *
+	 * @param downloads the files to download.
+	 * @param listener receives the progress, may be null.
+	 *
+	 * @throws InterruptedIOException if the listener cancelled the download.
+	 * @throws IOException if a file could not be downloaded.
+	 */
+	public void download(List<Download> downloads, ProgressListener listener)
+		throws IOException
+	{
+		this.cancelled = false;
+		List<FileTransfer> transfers = new ArrayList<FileTransfer>();
+		final AtomicInteger threadCounter = new AtomicInteger(0);
+		ExecutorService workers = Executors.newFixedThreadPool(this.connections, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "ParallelDownloader-" + threadCounter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		try
+		{
+			long bytesTotal = 0;
+			for (Download download : downloads)
+			{
+				FileTransfer transfer = this.openTransfer(download);
+				transfers.add(transfer);
+				bytesTotal += transfer.size;
+			}
+
+			// Chunks of the different files alternate, so that all files make progress
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int chunk = 0; ; chunk++)
+			{
+				boolean submitted = false;
+				for (final FileTransfer transfer : transfers)
+				{
+					if (chunk < transfer.chunks)
+					{
+						final int chunkIndex = chunk;
+						futures.add(workers.submit(new Callable<Void>()
+						{
+							@Override
+							public Void call()
+								throws Exception
+							{
+								fetchChunk(transfer, chunkIndex);
+								return null;
+							}
+						}));
+						submitted = true;
+					}
+				}
+
+				if (!submitted)
+				{
+					break;
+				}
+			}
+
+			ByteBuffer hashBuffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+			while (!futures.isEmpty())
+			{
+				try
+				{
+					Thread.sleep(PROGRESS_INTERVAL);
+				} catch (InterruptedException ie)
+				{
+					throw new InterruptedIOException("Download interrupted");
+				}
+
+				// A failed chunk ends the whole download, its file is resumed next time
+				for (Iterator<Future<Void>> iterator = futures.iterator(); iterator.hasNext(); )
+				{
+					Future<Void> future = iterator.next();
+					if (future.isDone())
+					{
+						getResult(future);
+						iterator.remove();
+					}
+				}
+
+				for (FileTransfer transfer : transfers)
+				{
+					transfer.updateDigest(hashBuffer);
+				}
+
+				if (listener != null)
+				{
+					long bytesDone = 0;
+					for (FileTransfer transfer : transfers)
+					{
+						bytesDone += transfer.getBytesDone();
+					}
+
+					if (!listener.progress(bytesDone, bytesTotal))
+					{
+						throw new InterruptedIOException("Download cancelled");
+					}
+				}
+			}
+
+			for (FileTransfer transfer : transfers)
+			{
+				transfer.updateDigest(hashBuffer);
+				transfer.complete();
+			}
+		} finally
+		{
+			// Workers still running notice this at their next read and stop
+			this.cancelled = true;
+			workers.shutdown();
+			for (FileTransfer transfer : transfers)
+			{
+				transfer.close();
+			}
+		}
+	}
+
+
+	private static void getResult(Future<Void> future)
+		throws IOException
+	{
+		try
+		{
+			future.get();
+		} catch (InterruptedException ie)
+		{
+			throw new InterruptedIOException("Download interrupted");
+		} catch (ExecutionException ee)
+		{
+			Throwable cause = ee.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+
+	/**
+	 * Asks the server for the size of the file and whether it supports ranges, then prepares the
+	 * partial file - either resuming from the existing state or starting anew.
+	 */
+	private FileTransfer openTransfer(Download download)
+		throws IOException
+	{
+		HttpURLConnection connection = this.openConnection(download.url);
+		connection.setRequestProperty("Range", "bytes=0-0");
+		boolean ranges;
+		long size;
+		try
+		{
+			int code = connection.getResponseCode();
+			if (code == HttpURLConnection.HTTP_PARTIAL)
+			{
+				ranges = true;
+				size = parseContentRangeSize(connection.getHeaderField("Content-Range"));
+			} else if (code == HttpURLConnection.HTTP_OK)
+			{
+				ranges = false;
+				size = connection.getContentLengthLong();
+			} else
+			{
+				throw new IOException("Unexpected HTTP response " + code + " for " + download.url);
+			}
+		} finally
+		{
+			connection.disconnect();
+		}
+
+		if (size < 0)
+		{
+			size = download.size;
+		}
+		if ((download.size > 0) && (size != download.size))
+		{
+			throw new IOException("Server reports size " + size + " for " + download.url +
+			                      ", expected " + download.size);
+		}
+
+		FileTransfer transfer = new FileTransfer(
+			download, size, ranges, ranges ? this.chunkSize : Math.max(1, size));
+		if (ranges && transfer.resume())
+		{
+			Log.info("Resuming download of {0} at {1} of {2} bytes",
+			         download.url, transfer.getBytesDone(), size);
+		} else
+		{
+			if (!ranges)
+			{
+				Log.info("Server does not support ranges, downloading {0} on one connection", download.url);
+			}
+			transfer.create();
+		}
+
+		return transfer;
+	}
+
+
+	private void fetchChunk(FileTransfer transfer, int chunk)
+		throws IOException, InterruptedException
+	{
+		int attempt = 0;
+		while (transfer.getChunkPosition(chunk) < transfer.getChunkEnd(chunk))
+		{
+			long positionBefore = transfer.getChunkPosition(chunk);
+			try
+			{
+				this.transferRange(transfer, chunk);
+			} catch (IOException ioe)
+			{
+				if (this.cancelled)
+				{
+					throw new InterruptedIOException("Download cancelled");
+				}
+
+				// Attempts are counted anew as long as the connection delivers data
+				attempt = (transfer.getChunkPosition(chunk) > positionBefore) ? 1 : attempt + 1;
+				if (attempt >= MAX_ATTEMPTS)
+				{
+					throw ioe;
+				}
+
+				Log.warning("Download of {0} failed at position {1}, retrying: {2}",
+				            transfer.download.url, transfer.getChunkPosition(chunk), ioe.toString());
+				Thread.sleep(RETRY_DELAY * attempt);
+			}
+		}
+	}
+
+
+	private void transferRange(FileTransfer transfer, int chunk)
+		throws IOException
+	{
+		long position = transfer.getChunkPosition(chunk);
+		long end = transfer.getChunkEnd(chunk);
+
+		HttpURLConnection connection = this.openConnection(transfer.download.url);
+		if (transfer.ranges)
+		{
+			connection.setRequestProperty("Range", "bytes=" + position + "-" + (end - 1));
+		} else if (position > 0)
+		{
+			// Without ranges the only way is to start over
+			transfer.setChunkPosition(chunk, 0);
+			position = 0;
+		}
+
+		int code = connection.getResponseCode();
+		if (transfer.ranges)
+		{
+			String contentRange = connection.getHeaderField("Content-Range");
+			if ((code != HttpURLConnection.HTTP_PARTIAL) || (contentRange == null) ||
+			    (!contentRange.startsWith("bytes " + position + "-")))
+			{
+				connection.disconnect();
+				throw new IOException("Unexpected HTTP response " + code + " (" + contentRange + ") for " +
+				                      transfer.download.url + " at position " + position);
+			}
+		} else if (code != HttpURLConnection.HTTP_OK)
+		{
+			connection.disconnect();
+			throw new IOException("Unexpected HTTP response " + code + " for " + transfer.download.url);
+		}
+
+		InputStream in = connection.getInputStream();
+		try
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			long lastStateUpdate = position;
+			while (position < end)
+			{
+				if (this.cancelled)
+				{
+					throw new InterruptedIOException("Download cancelled");
+				}
+
+				int read = in.read(buffer.array(), 0, (int)Math.min(buffer.capacity(), end - position));
+				if (read < 0)
+				{
+					throw new EOFException("Connection closed at position " + position + " of " +
+					                       transfer.download.url);
+				}
+
+				buffer.clear();
+				buffer.limit(read);
+				while (buffer.hasRemaining())
+				{
+					position += transfer.data.write(buffer, position);
+				}
+
+				transfer.setChunkPosition(chunk, position);
+				if ((position - lastStateUpdate >= STATE_UPDATE_BYTES) || (position == end))
+				{
+					transfer.writeChunkState(chunk);
+					lastStateUpdate = position;
+				}
+			}
+		} finally
+		{
+			in.close();
+		}
+	}
+
+
+	private HttpURLConnection openConnection(URL url)
+		throws IOException
+	{
+		HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+		connection.setRequestProperty("User-Agent", USER_AGENT);
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+		return connection;
+	}
+
+
+	// Content-Range: bytes 0-0/910173851
+	private static long parseContentRangeSize(String contentRange)
+		throws IOException
+	{
+		int slash = (contentRange != null) ? contentRange.lastIndexOf('/') : -1;
+		if (slash < 0)
+		{
+			throw new IOException("Missing size in Content-Range: " + contentRange);
+		}
+
+		String size = contentRange.substring(slash + 1).trim();
+		if (size.equals("*"))
+		{
+			return -1;
+		}
+
+		try
+		{
+			return Long.parseLong(size);
+		} catch (NumberFormatException nfe)
+		{
+			throw new IOException("Bad Content-Range: " + contentRange);
+		}
+	}
+
+
+	/**
+	 * The partial data and the state of one file. The chunks are written concurrently to the
+	 * same channels at different positions. The state file holds the magic number, the file size
+	 * and the chunk size, followed by the number of bytes received for every chunk.
+	 */
+	private static class FileTransfer
+	{
+		Download download;
+		long size;
+		long chunkSize;
+		int chunks;
+		boolean ranges;
+
+		File partFile;
+		File stateFile;
+		FileChannel data;
+		FileChannel state;
+
+		// Bytes received for every chunk
+		AtomicLongArray received;
+
+		// The file is hashed up to this position - only accessed by the waiting thread
+		MessageDigest digest;
+		long hashed;
+
+
+		FileTransfer(Download download, long size, boolean ranges, long chunkSize)
+		{
+			this.download  = download;
+			this.size      = size;
+			this.ranges    = ranges;
+			this.chunkSize = chunkSize;
+			this.chunks    = (int)((size + chunkSize - 1) / chunkSize);
+			this.received  = new AtomicLongArray(this.chunks);
+			this.digest    = newSHA256();
+
+			this.partFile  = new File(download.target.getPath() + ".part");
+			this.stateFile = new File(download.target.getPath() + ".part.state");
+		}
+
+
+		long getChunkPosition(int chunk)
+		{
+			return (long)chunk * this.chunkSize + this.received.get(chunk);
+		}
+
+
+		void setChunkPosition(int chunk, long position)
+		{
+			this.received.set(chunk, position - (long)chunk * this.chunkSize);
+		}
+
+
+		long getChunkEnd(int chunk)
+		{
+			return Math.min(this.size, (long)(chunk + 1) * this.chunkSize);
+		}
+
+
+		long getBytesDone()
+		{
+			long bytesDone = 0;
+			for (int chunk = 0; chunk < this.chunks; chunk++)
+			{
+				bytesDone += this.received.get(chunk);
+			}
+
+			return bytesDone;
+		}
+
+
+		/**
+		 * Adds the data that is received without gaps since the last call to the digest. The
+		 * chunks are written sequentially, so the contiguous part ends in the first chunk that
+		 * is not complete.
+		 */
+		void updateDigest(ByteBuffer buffer)
+			throws IOException
+		{
+			long end = this.size;
+			for (int chunk = (int)(this.hashed / this.chunkSize); chunk < this.chunks; chunk++)
+			{
+				if (this.getChunkPosition(chunk) < this.getChunkEnd(chunk))
+				{
+					end = this.getChunkPosition(chunk);
+					break;
+				}
+			}
+
+			if (end < this.hashed)
+			{
+				// A download without ranges started over
+				this.digest.reset();
+				this.hashed = 0;
+			}
+
+			while (this.hashed < end)
+			{
+				buffer.clear();
+				buffer.limit((int)Math.min(buffer.capacity(), end - this.hashed));
+				int read = this.data.read(buffer, this.hashed);
+				if (read <= 0)
+				{
+					throw new EOFException("Partial download ends at " + this.hashed + ": " + this.partFile);
+				}
+
+				buffer.flip();
+				this.digest.update(buffer);
+				this.hashed += read;
+			}
+		}
+
+
+		/**
+		 * Continues from an existing partial file if its state matches this download.
+		 */
+		boolean resume()
+			throws IOException
+		{
+			if ((!this.partFile.isFile()) || (!this.stateFile.isFile()) ||
+			    (this.partFile.length() != this.size) ||
+			    (this.stateFile.length() != STATE_HEADER_SIZE + 8L * this.chunks))
+			{
+				return false;
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocate((int)this.stateFile.length());
+			try (FileChannel channel = FileChannel.open(this.stateFile.toPath(), StandardOpenOption.READ))
+			{
+				while (buffer.hasRemaining() && (channel.read(buffer) >= 0));
+			}
+			buffer.flip();
+
+			if ((buffer.getLong() != STATE_MAGIC) || (buffer.getLong() != this.size) ||
+			    (buffer.getLong() != this.chunkSize))
+			{
+				return false;
+			}
+
+			for (int chunk = 0; chunk < this.chunks; chunk++)
+			{
+				long chunkLength = this.getChunkEnd(chunk) - (long)chunk * this.chunkSize;
+				this.received.set(chunk, Math.max(0, Math.min(chunkLength, buffer.getLong())));
+			}
+
+			this.open();
+			return true;
+		}
+
+
+		/**
+		 * Starts a new partial file of the full size and an empty state.
+		 */
+		void create()
+			throws IOException
+		{
+			this.partFile.delete();
+			this.stateFile.delete();
+			this.open();
+
+			// Resuming requires the full length, also when the last chunk is not written yet
+			if (this.size > 0)
+			{
+				this.data.write(ByteBuffer.allocate(1), this.size - 1);
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocate(STATE_HEADER_SIZE + 8 * this.chunks);
+			buffer.putLong(STATE_MAGIC).putLong(this.size).putLong(this.chunkSize);
+			buffer.position(0);
+			while (buffer.hasRemaining())
+			{
+				this.state.write(buffer, buffer.position());
+			}
+		}
+
+
+		void writeChunkState(int chunk)
+			throws IOException
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(8);
+			buffer.putLong(0, this.received.get(chunk));
+			long position = STATE_HEADER_SIZE + 8L * chunk;
+			while (buffer.hasRemaining())
+			{
+				this.state.write(buffer, position + buffer.position());
+			}
+		}
+
+
+		/**
+		 * Moves the complete file to its target and removes the state.
+		 */
+		void complete()
+			throws IOException
+		{
+			if (this.hashed != this.size)
+			{
+				throw new IOException("Only " + this.hashed + " of " + this.size + " bytes hashed: " + this.partFile);
+			}
+			this.download.sha256 = Util.bytesToHex(this.digest.digest()).toLowerCase(Locale.ROOT);
+
+			this.data.force(false);
+			this.close();
+			this.stateFile.delete();
+			Util.replaceFile(this.partFile, this.download.target);
+			Log.info("Downloaded {0} to {1}", this.download.url, this.download.target.getAbsolutePath());
+		}
+
+
+		void close()
+		{
+			for (FileChannel channel : new FileChannel[] { this.data, this.state })
+			{
+				try
+				{
+					if (channel != null)
+					{
+						channel.close();
+					}
+				} catch (IOException ioe)
+				{
+					Log.warning("Error closing partial download of {0}: {1}", this.download.url, ioe.getMessage());
+				}
+			}
+		}
+
+
+		private static MessageDigest newSHA256()
+		{
+			try
+			{
+				return MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException nsae)
+			{
+				// Every Java platform is required to support SHA-256
+				throw new IllegalStateException(nsae);
+			}
+		}
+
+
+		private void open()
+			throws IOException
+		{
+			this.data = FileChannel.open(this.partFile.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.state = FileChannel.open(this.stateFile.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+	}
+}
@@ -0,0 +1,259 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.WriterConfig;
+
+
+/**
+ * Remembers the SHA-256 digests of parameter files that have been hashed completely. A recorded
+ * digest is trusted as long as the size, modification time and file key (the inode where the
+ * platform has one) of the file are unchanged, so a large file needs to be hashed only once and
+ * not on every start.
+ *
+ * The manifest is a JSON object with the canonical path of every file as member name.
+ */
+public class ParamsManifest
+{
+	public static enum STATUS
+	{
+		VERIFIED, // Unchanged since it was hashed, digest is the expected one
+		CORRUPT,  // Unchanged since it was hashed, digest is NOT the expected one
+		UNKNOWN   // Not hashed or changed since then
+	};
+
+
+	// Memory mapped in pieces of this size while hashing
+	private static final long MAP_SIZE = 64 * 1024 * 1024;
+
+	private File manifestFile;
+	private JsonObject entries;
+
+
+	public ParamsManifest(File manifestFile)
+	{
+		this.manifestFile = manifestFile;
+		this.entries = new JsonObject();
+
+		if (manifestFile.isFile())
+		{
+			try (InputStream in = Files.newInputStream(manifestFile.toPath()))
+			{
+				this.entries = Json.parse(in).asObject();
+			} catch (Exception e)
+			{
+				// Only costs a new hash of the files
+				Log.warning("Ignoring unreadable parameters manifest {0}: {1}",
+				            manifestFile.getAbsolutePath(), e.toString());
+			}
+		}
+	}
+
+
+	/**
+	 * Checks a file against the manifest - without reading its content.
+	 *
+	 * @param file the file to check.
+	 * @param expectedSHA256 the hex digest the file should have.
+	 *
+	 * @return the status of the file.
+	 */
+	public synchronized STATUS getStatus(File file, String expectedSHA256)
+		throws IOException
+	{
+		JsonValue entry = this.entries.get(file.getCanonicalPath());
+		if ((entry == null) || (!entry.isObject()) || (!file.isFile()))
+		{
+			return STATUS.UNKNOWN;
+		}
+
+		JsonObject recorded = entry.asObject();
+		JsonObject current = getFileStats(file);
+		for (String name : new String[] { "size", "mtime", "filekey" })
+		{
+			if (!current.get(name).equals(recorded.get(name)))
+			{
+				return STATUS.UNKNOWN;
+			}
+		}
+
+		return expectedSHA256.equalsIgnoreCase(recorded.getString("sha256", "")) ?
+			STATUS.VERIFIED : STATUS.CORRUPT;
+	}
+
+
+	/**
+	 * Records the digest of a file with its current size, modification time and file key.
+	 *
+	 * @param file the file that was hashed.
+	 * @param sha256 the hex digest of the file.
+	 */
+	public synchronized void record(File file, String sha256)
+		throws IOException
+	{
+		this.record(file, getFileStats(file), sha256);
+	}
+
+
+	/**
+	 * Hashes files in a background thread of low priority, and records their digests. A file
+	 * that turns out CORRUPT is downloaded anew on the next start.
+	 *
+	 * @param files the files to hash, mapped to the digests they should have.
+	 */
+	public void verifyInBackground(final Map<File, String> files)
+	{
+		if (files.isEmpty())
+		{
+			return;
+		}
+
+		Thread verifier = new Thread("ParamsVerifier")
+		{
+			@Override
+			public void run()
+			{
+				for (Map.Entry<File, String> fileAndDigest : files.entrySet())
+				{
+					File file = fileAndDigest.getKey();
+					try
+					{
+						long start = System.currentTimeMillis();
+						JsonObject stats = getFileStats(file);
+						String sha256 = computeSHA256(file);
+
+						// A file changed while being hashed is left for the next start
+						if (!stats.equals(getFileStats(file)))
+						{
+							Log.warning("Parameter file {0} changed while being verified", file.getAbsolutePath());
+							continue;
+						}
+
+						record(file, stats, sha256);
+						if (sha256.equalsIgnoreCase(fileAndDigest.getValue()))
+						{
+							Log.info("Parameter file {0} verified in {1} ms",
+							         file.getAbsolutePath(), System.currentTimeMillis() - start);
+						} else
+						{
+							Log.error("Parameter file {0} has SHA-256 {1} instead of {2} - it will be downloaded again on the next start",
+							          file.getAbsolutePath(), sha256, fileAndDigest.getValue());
+						}
+					} catch (IOException ioe)
+					{
+						Log.warning("Could not verify parameter file {0}: {1}", file.getAbsolutePath(), ioe.toString());
+					}
+				}
+			}
+		};
+		verifier.setDaemon(true);
+		verifier.setPriority(Thread.MIN_PRIORITY);
+		verifier.start();
+	}
+
+
+	/**
+	 * Computes the SHA-256 digest of a file, memory mapping it piece by piece.
+	 *
+	 * @return the lower case hex digest.
+	 */
+	public static String computeSHA256(File file)
+		throws IOException
+	{
+		MessageDigest sha256;
+		try
+		{
+			sha256 = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException impossible)
+		{
+			throw new IOException(impossible);
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			for (long position = 0; position < size; position += MAP_SIZE)
+			{
+				MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_SIZE, size - position));
+				sha256.update(buffer);
+			}
+		}
+
+		return Util.bytesToHex(sha256.digest()).toLowerCase(Locale.ROOT);
+	}
+
+
+	private synchronized void record(File file, JsonObject stats, String sha256)
+		throws IOException
+	{
+		stats.set("sha256", sha256.toLowerCase(Locale.ROOT));
+		this.entries.set(file.getCanonicalPath(), stats);
+
+		// Replaced in one step, a crash leaves either the old or the new manifest
+		File tempFile = new File(this.manifestFile.getPath() + ".tmp");
+		try (OutputStream out = Files.newOutputStream(tempFile.toPath()))
+		{
+			this.entries.writeTo(out, WriterConfig.PRETTY_PRINT);
+		}
+
+		Util.replaceFile(tempFile, this.manifestFile);
+	}
+
+
+	private static JsonObject getFileStats(File file)
+		throws IOException
+	{
+		BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+		Object fileKey = attributes.fileKey();
+
+		JsonObject stats = new JsonObject();
+		stats.set("size",    attributes.size());
+		stats.set("mtime",   attributes.lastModifiedTime().toMillis());
+		stats.set("filekey", (fileKey != null) ? fileKey.toString() : "");
+		return stats;
+	}
+}
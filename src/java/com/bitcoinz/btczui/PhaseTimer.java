@@ -0,0 +1,128 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Measures how long the phases of an activity - like the startup of the wallet - take. Phases
+ * follow each other, starting a phase ends the previous one. A phase that is entered again adds
+ * to its earlier duration.
+ */
+public class PhaseTimer
+{
+	private String name;
+	private long start;
+	private String currentPhase;
+	private long currentPhaseStart;
+	private long end = -1;
+	private Map<String, Long> durations = new LinkedHashMap<String, Long>();
+
+
+	public PhaseTimer(String name)
+	{
+		this.name = name;
+		this.start = System.currentTimeMillis();
+	}
+
+
+	/**
+	 * Ends the current phase and starts a new one. Nothing changes if the phase is the current one.
+	 *
+	 * @param phase the name of the phase.
+	 */
+	public synchronized void startPhase(String phase)
+	{
+		if (phase.equals(this.currentPhase))
+		{
+			return;
+		}
+
+		this.endCurrentPhase();
+		this.currentPhase = phase;
+		this.currentPhaseStart = System.currentTimeMillis();
+	}
+
+
+	/**
+	 * Ends the last phase and logs the duration of the whole activity and of every phase.
+	 *
+	 * @return the duration of the whole activity in milliseconds.
+	 */
+	public synchronized long finish()
+	{
+		if (this.end < 0)
+		{
+			this.endCurrentPhase();
+			this.end = System.currentTimeMillis();
+
+			StringBuilder phases = new StringBuilder();
+			for (Map.Entry<String, Long> phase : this.durations.entrySet())
+			{
+				phases.append((phases.length() > 0) ? ", " : "").
+				       append(phase.getKey()).append(": ").append(phase.getValue()).append(" ms");
+			}
+			Log.info("{0} took {1} ms - {2}", this.name, this.end - this.start, phases);
+		}
+
+		return this.end - this.start;
+	}
+
+
+	/**
+	 * @return the milliseconds since the activity started, until it finished.
+	 */
+	public synchronized long getElapsed()
+	{
+		return ((this.end >= 0) ? this.end : System.currentTimeMillis()) - this.start;
+	}
+
+
+	/**
+	 * @return the durations of the phases that have ended, in the order they were first entered.
+	 */
+	public synchronized Map<String, Long> getDurations()
+	{
+		return new LinkedHashMap<String, Long>(this.durations);
+	}
+
+
+	private void endCurrentPhase()
+	{
+		if (this.currentPhase != null)
+		{
+			Long previous = this.durations.get(this.currentPhase);
+			this.durations.put(this.currentPhase, ((previous != null) ? previous : 0) +
+			                   System.currentTimeMillis() - this.currentPhaseStart);
+			this.currentPhase = null;
+		}
+	}
+}
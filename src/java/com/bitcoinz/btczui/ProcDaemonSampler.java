@@ -0,0 +1,315 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+
+import com.bitcoinz.btczui.BTCZInstallationObserver.DAEMON_STATUS;
+import com.bitcoinz.btczui.BTCZInstallationObserver.DaemonInfo;
+
+
+/**
+ * Samples the resource usage of a daemon on Linux by reading the files /proc/[pid]/stat, status
+ * and io - instead of running and parsing "ps" for all processes on every sample. The PID of the
+ * daemon is found once and kept while the same process is running.
+ *
+ * The CPU percentage and the I/O rates are averages since the previous sample (since the start
+ * of the daemon for the first sample - like "ps" does). Memory sizes are given in thousands of
+ * KB, like the "ps" figures.
+ */
+public class ProcDaemonSampler
+{
+	private static final File PROC = new File("/proc");
+
+	// USER_HZ - the unit of the CPU times in /proc - is 100 for the user space of all Linux platforms
+	private static final double TICKS_PER_SECOND = 100d;
+
+	// Names in /proc/[pid]/comm are truncated to this length
+	private static final int COMM_LENGTH = 15;
+
+	private String daemonName;
+
+	private int  pid;
+	private long startTime;     // Start time (ticks after boot) of the process with this PID
+
+	// Values of the previous sample
+	private long lastSampleNanos;
+	private long lastCPUTicks;
+	private long lastReadBytes;
+	private long lastWriteBytes;
+
+
+	public ProcDaemonSampler(String daemonName)
+	{
+		this.daemonName = (daemonName.length() > COMM_LENGTH) ? daemonName.substring(0, COMM_LENGTH) : daemonName;
+		this.pid = -1;
+	}
+
+
+	/**
+	 * @return true if the /proc file system can be used on this system.
+	 */
+	public static boolean isAvailable()
+	{
+		return new File(PROC, "self/stat").isFile() && new File(PROC, "self/status").isFile();
+	}
+
+
+	/**
+	 * Takes a sample of the daemon resource usage.
+	 *
+	 * @return the daemon info - with status NOT_RUNNING if the daemon is not found.
+	 */
+	public synchronized DaemonInfo sample()
+		throws IOException
+	{
+		DaemonInfo info = new DaemonInfo();
+		info.status = DAEMON_STATUS.NOT_RUNNING;
+
+		String[] stat = null;
+		if (this.pid > 0)
+		{
+			stat = this.readStat(this.pid);
+			// Ended, or the PID is now used by another process
+			if ((stat == null) || (Long.parseLong(stat[19]) != this.startTime))
+			{
+				Log.info("Process {0} of {1} has ended", String.valueOf(this.pid), this.daemonName);
+				this.pid = -1;
+				stat = null;
+			}
+		}
+
+		if (this.pid <= 0)
+		{
+			stat = this.findDaemon();
+			if (stat == null)
+			{
+				return info;
+			}
+		}
+
+		long nowNanos = System.nanoTime();
+		long cpuTicks = Long.parseLong(stat[11]) + Long.parseLong(stat[12]); // utime + stime
+		long virtualBytes = Long.parseLong(stat[20]);
+
+		// The resident size is given in KB there - no need to know the page size
+		String status = this.readFile(new File(PROC, this.pid + "/status"));
+		if (status == null)
+		{
+			// Ended just now
+			this.pid = -1;
+			return info;
+		}
+
+		info.status = DAEMON_STATUS.RUNNING;
+		info.virtualSizeMB  = (virtualBytes / 1024) / 1000d;
+		info.residentSizeMB = this.getStatusKB(status, "VmRSS:") / 1000d;
+
+		// First sample - average since the start of the process
+		double seconds;
+		long previousCPUTicks;
+		boolean firstSample = (this.lastSampleNanos == 0);
+		if (firstSample)
+		{
+			String[] uptime = this.readFields(new File(PROC, "uptime"));
+			seconds = Double.parseDouble(uptime[0]) - (this.startTime / TICKS_PER_SECOND);
+			previousCPUTicks = 0;
+		} else
+		{
+			seconds = (nowNanos - this.lastSampleNanos) / 1000000000d;
+			previousCPUTicks = this.lastCPUTicks;
+		}
+
+		if (seconds > 0)
+		{
+			double cpuPercentage = ((cpuTicks - previousCPUTicks) / TICKS_PER_SECOND) / seconds * 100d;
+			info.cpuPercentage = Math.round(cpuPercentage * 10) / 10d;
+		}
+
+		// The I/O counters may only be read for own processes (or as root)
+		long[] io = this.readIO();
+		if (io != null)
+		{
+			long previousReadBytes  = firstSample ? 0 : this.lastReadBytes;
+			long previousWriteBytes = firstSample ? 0 : this.lastWriteBytes;
+			if (seconds > 0)
+			{
+				info.ioReadKBPerSecond  = Math.round((io[0] - previousReadBytes)  / 1024d / seconds * 10) / 10d;
+				info.ioWriteKBPerSecond = Math.round((io[1] - previousWriteBytes) / 1024d / seconds * 10) / 10d;
+			}
+
+			this.lastReadBytes  = io[0];
+			this.lastWriteBytes = io[1];
+		}
+
+		this.lastSampleNanos = nowNanos;
+		this.lastCPUTicks = cpuTicks;
+
+		return info;
+	}
+
+
+	// Scans /proc for the daemon, returns its stat fields or null if not running
+	private String[] findDaemon()
+		throws IOException
+	{
+		String[] entries = PROC.list();
+		if (entries == null)
+		{
+			throw new IOException("Could not list directory " + PROC.getAbsolutePath());
+		}
+
+		for (String entry : entries)
+		{
+			if ((entry.isEmpty()) || (!Character.isDigit(entry.charAt(0))))
+			{
+				continue;
+			}
+
+			String comm = this.readFile(new File(PROC, entry + "/comm"));
+			if ((comm == null) || (!comm.trim().equals(this.daemonName)))
+			{
+				continue;
+			}
+
+			int candidate = Integer.parseInt(entry);
+			String[] stat = this.readStat(candidate);
+			if (stat != null)
+			{
+				this.pid = candidate;
+				this.startTime = Long.parseLong(stat[19]);
+				this.lastSampleNanos = 0;
+				Log.info("Found {0} as process {1}", this.daemonName, entry);
+				return stat;
+			}
+		}
+
+		return null;
+	}
+
+
+	// Fields of /proc/[pid]/stat after the command name - the state is at index 0 (field 3 in proc(5))
+	private String[] readStat(int pid)
+		throws IOException
+	{
+		String stat = this.readFile(new File(PROC, pid + "/stat"));
+		if (stat == null)
+		{
+			return null;
+		}
+
+		// The command name in parentheses may contain spaces and parentheses itself
+		int commandEnd = stat.lastIndexOf(')');
+		return stat.substring(commandEnd + 2).trim().split(" ");
+	}
+
+
+	// Bytes read and written by the daemon - null if the counters may not be read
+	private long[] readIO()
+		throws IOException
+	{
+		String io;
+		try
+		{
+			io = this.readFile(new File(PROC, this.pid + "/io"));
+		} catch (AccessDeniedException ade)
+		{
+			return null;
+		}
+
+		if (io == null)
+		{
+			return null;
+		}
+
+		long[] readAndWritten = { -1, -1 };
+		for (String line : io.split("\n"))
+		{
+			if (line.startsWith("read_bytes:"))
+			{
+				readAndWritten[0] = Long.parseLong(line.substring("read_bytes:".length()).trim());
+			} else if (line.startsWith("write_bytes:"))
+			{
+				readAndWritten[1] = Long.parseLong(line.substring("write_bytes:".length()).trim());
+			}
+		}
+
+		return ((readAndWritten[0] >= 0) && (readAndWritten[1] >= 0)) ? readAndWritten : null;
+	}
+
+
+	// A size in KB from /proc/[pid]/status - 0 if not given, e.g. for a zombie process
+	private long getStatusKB(String status, String name)
+	{
+		for (String line : status.split("\n"))
+		{
+			if (line.startsWith(name))
+			{
+				String value = line.substring(name.length()).trim();
+				int unitStart = value.indexOf(' ');
+				return Long.parseLong((unitStart > 0) ? value.substring(0, unitStart) : value);
+			}
+		}
+
+		return 0;
+	}
+
+
+	private String[] readFields(File file)
+		throws IOException
+	{
+		String content = this.readFile(file);
+		return (content != null) ? content.trim().split(" ") : null;
+	}
+
+
+	// Null if the file does not exist - e.g. the process has ended
+	private String readFile(File file)
+		throws IOException
+	{
+		try
+		{
+			return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII);
+		} catch (IOException ioe)
+		{
+			// A process that ends while being read may also fail the read itself
+			if ((ioe instanceof NoSuchFileException) || (!file.getParentFile().exists()))
+			{
+				return null;
+			}
+
+			throw ioe;
+		}
+	}
+}
@@ -13,24 +13,28 @@
 package com.bitcoinz.btczui;
 
 import java.awt.Component;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.net.URL;
 import java.net.URLConnection;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
-import javax.swing.ProgressMonitorInputStream;
+import javax.swing.ProgressMonitor;
 
 import com.bitcoinz.btczui.OSUtil.OS_TYPE;
 
@@ -92,21 +96,12 @@ public class ProvingKeyFetcher {
             btczParams.mkdirs();
         }
 
-        // verifying key is small, always copy it
-        File verifyingKeyFile = new File(btczParams,"sprout-verifying.key");
-        FileOutputStream fos = new FileOutputStream(verifyingKeyFile);
-        InputStream is = ProvingKeyFetcher.class.getClassLoader().getResourceAsStream("keys/sprout-verifying.key");
-        copy(is,fos);
-        fos.close();
-        is = null;
-
-        // sapling output params is small, always copy it
-        File saplingOutputFile = new File(btczParams,"sapling-output.params");
-        FileOutputStream fosB = new FileOutputStream(saplingOutputFile);
-        InputStream isB = ProvingKeyFetcher.class.getClassLoader().getResourceAsStream("keys/sapling-output.params");
-        copy(isB,fosB);
-        fosB.close();
-        isB = null;
+        // Files that have been hashed before are trusted if unchanged
+        ParamsManifest manifest = new ParamsManifest(new File(OSUtil.getSettingsDirectory(), "params-manifest.json"));
+
+        // verifying key and sapling output params are small and bundled, installed when different
+        installBundledFile("keys/sprout-verifying.key", new File(btczParams,"sprout-verifying.key"), manifest);
+        installBundledFile("keys/sapling-output.params", new File(btczParams,"sapling-output.params"), manifest);
 
         File provingKeyFile = new File(btczParams,"sprout-proving.key");
         provingKeyFile = provingKeyFile.getCanonicalFile();
@@ -114,41 +109,15 @@ public class ProvingKeyFetcher {
         sproutGrothFile = sproutGrothFile.getCanonicalFile();
         File saplingSpendFile = new File(btczParams,"sapling-spend.params");
         saplingSpendFile = saplingSpendFile.getCanonicalFile();
-        if (!provingKeyFile.exists())
-        {
-            needsFetch = true;
-        } else if (provingKeyFile.length() != PROVING_KEY_SIZE)
-        {
-            needsFetch = true;
-        }
-
-        if (!sproutGrothFile.exists())
-        {
-            needsFetchSG = true;
-        } else if (sproutGrothFile.length() != SPROUT_GROTH_SIZE)
-        {
-            needsFetchSG = true;
-        }
-
-        if (!saplingSpendFile.exists())
-        {
-            needsFetchSS = true;
-        } else if (saplingSpendFile.length() != SAPLING_SPEND_SIZE)
-        {
-            needsFetchSS = true;
-        }
-
-        /*
-         * We skip proving key verification every start - this is impractical.
-         * If the proving key exists and is the correct size, then it should be OK.
-        else
-        {
-            parent.setProgressText("Verifying proving key...");
-            needsFetch = !checkSHA256(provingKeyFile,parent);
-        }*/
+        // Files that have not been hashed before are hashed in the background
+        Map<File, String> unverified = new LinkedHashMap<File, String>();
+        needsFetch   |= isFetchNeeded(provingKeyFile,   PROVING_KEY_SIZE,   SHA256,   manifest, unverified);
+        needsFetchSG |= isFetchNeeded(sproutGrothFile,  SPROUT_GROTH_SIZE,  SHA256SG, manifest, unverified);
+        needsFetchSS |= isFetchNeeded(saplingSpendFile, SAPLING_SPEND_SIZE, SHA256SS, manifest, unverified);
 
         if (!needsFetch && !needsFetchSG && !needsFetchSS)
         {
+            manifest.verifyInBackground(unverified);
             return;
         }
 
@@ -157,159 +126,184 @@ public class ProvingKeyFetcher {
         	langUtil.getString("proving.key.fetcher.option.pane.verify.message"));
 
         parent.setProgressText(langUtil.getString("proving.key.fetcher.option.pane.verify.progress.text"));
+        ParallelDownloader.Download provingKeyDownload =
+            new ParallelDownloader.Download(new URL(pathURL), provingKeyFile, PROVING_KEY_SIZE);
+        ParallelDownloader.Download sproutGrothDownload =
+            new ParallelDownloader.Download(new URL(pathURLSG), sproutGrothFile, SPROUT_GROTH_SIZE);
+        ParallelDownloader.Download saplingSpendDownload =
+            new ParallelDownloader.Download(new URL(pathURLSS), saplingSpendFile, SAPLING_SPEND_SIZE);
+        List<ParallelDownloader.Download> downloads = new ArrayList<ParallelDownloader.Download>();
         if (needsFetch) {
-        provingKeyFile.delete();
-        OutputStream os = new BufferedOutputStream(new FileOutputStream(provingKeyFile));
-        URL keyURL = new URL(pathURL);
-        URLConnection urlc = keyURL.openConnection();
-        urlc.setRequestProperty("User-Agent", "Wget/1.17.1 (linux-gnu)");
-
-        try
-        {
-        	is = urlc.getInputStream();
-            ProgressMonitorInputStream pmis = new ProgressMonitorInputStream(parent, langUtil.getString("proving.key.fetcher.option.pane.verify.progress.monitor.text"), is);
-            pmis.getProgressMonitor().setMaximum(PROVING_KEY_SIZE);
-            pmis.getProgressMonitor().setMillisToPopup(10);
-
-            copy(pmis,os);
-            os.close();
-        } finally
-        {
-            try { if (is != null) is.close(); } catch (IOException ignore){}
+            downloads.add(provingKeyDownload);
         }
-        parent.setProgressText(langUtil.getString("proving.key.fetcher.option.pane.verify.key.text"));
-        if (!checkSHA256(provingKeyFile, parent))
-        {
-            JOptionPane.showMessageDialog(parent, langUtil.getString("proving.key.fetcher.option.pane.verify.key.failed.text"));
-            System.exit(-4);
+        if (needsFetchSG) {
+            downloads.add(sproutGrothDownload);
         }
+        if (needsFetchSS) {
+            downloads.add(saplingSpendDownload);
         }
-        if (needsFetchSG) {
-        sproutGrothFile.delete();
-        OutputStream os = new BufferedOutputStream(new FileOutputStream(sproutGrothFile));
-        URL keyURL = new URL(pathURLSG);
-        URLConnection urlc = keyURL.openConnection();
-        urlc.setRequestProperty("User-Agent", "Wget/1.17.1 (linux-gnu)");
+        download(parent, downloads);
 
-        try
-        {
-        	is = urlc.getInputStream();
-            ProgressMonitorInputStream pmis = new ProgressMonitorInputStream(parent, langUtil.getString("sprout.groth.fetcher.option.pane.verify.progress.monitor.text"), is);
-            pmis.getProgressMonitor().setMaximum(SPROUT_GROTH_SIZE);
-            pmis.getProgressMonitor().setMillisToPopup(10);
-
-            copy(pmis,os);
-            os.close();
-        } finally
-        {
-            try { if (is != null) is.close(); } catch (IOException ignore){}
-        }
-        parent.setProgressText(langUtil.getString("sprout.groth.fetcher.option.pane.verify.key.text"));
-        if (!checkSHA256SG(sproutGrothFile, parent))
-        {
-            JOptionPane.showMessageDialog(parent, langUtil.getString("sapsproutling.groth.fetcher.option.pane.verify.key.failed.text"));
-            System.exit(-4);
+        // The files are hashed while downloading, no second pass over them is needed
+        if (needsFetch) {
+            checkDownload(parent, manifest, provingKeyDownload, SHA256,
+                          "proving.key.fetcher.option.pane.verify.key.failed.text");
         }
+        if (needsFetchSG) {
+            checkDownload(parent, manifest, sproutGrothDownload, SHA256SG,
+                          "sapsproutling.groth.fetcher.option.pane.verify.key.failed.text");
         }
         if (needsFetchSS) {
-        saplingSpendFile.delete();
-        OutputStream os = new BufferedOutputStream(new FileOutputStream(saplingSpendFile));
-        URL keyURL = new URL(pathURLSS);
-        URLConnection urlc = keyURL.openConnection();
-        urlc.setRequestProperty("User-Agent", "Wget/1.17.1 (linux-gnu)");
-
-        try
-        {
-        	is = urlc.getInputStream();
-            ProgressMonitorInputStream pmis = new ProgressMonitorInputStream(parent, langUtil.getString("sapling.spend.fetcher.option.pane.verify.progress.monitor.text"), is);
-            pmis.getProgressMonitor().setMaximum(SAPLING_SPEND_SIZE);
-            pmis.getProgressMonitor().setMillisToPopup(10);
-
-            copy(pmis,os);
-            os.close();
-        } finally
-        {
-            try { if (is != null) is.close(); } catch (IOException ignore){}
+            checkDownload(parent, manifest, saplingSpendDownload, SHA256SS,
+                          "sapling.spend.fetcher.option.pane.verify.key.failed.text");
         }
-        parent.setProgressText(langUtil.getString("sapling.spend.fetcher.option.pane.verify.key.text"));
-        if (!checkSHA256SS(saplingSpendFile, parent))
-        {
-            JOptionPane.showMessageDialog(parent, langUtil.getString("sapling.spend.fetcher.option.pane.verify.key.failed.text"));
-            System.exit(-4);
+
+        manifest.verifyInBackground(unverified);
+    }
+
+
+    /**
+     * A file is fetched if it is missing, has the wrong size or is recorded as corrupt. A file
+     * with the right size that has not been hashed yet is used, and added to the unverified ones.
+     */
+    private static boolean isFetchNeeded(File file, long size, String sha256, ParamsManifest manifest,
+                                         Map<File, String> unverified) throws IOException {
+        if (!file.exists() || (file.length() != size)) {
+            return true;
         }
+
+        ParamsManifest.STATUS status = manifest.getStatus(file, sha256);
+        if (status == ParamsManifest.STATUS.CORRUPT) {
+            Log.warning("Parameter file {0} failed verification, downloading it again", file.getAbsolutePath());
+            return true;
+        } else if (status == ParamsManifest.STATUS.UNKNOWN) {
+            unverified.put(file, sha256);
         }
+
+        return false;
     }
 
 
-    private static void copy(InputStream is, OutputStream os) throws IOException {
-        byte[] buf = new byte[0x1 << 13];
-        int read;
-        while ((read = is.read(buf)) >- 0) {
-            os.write(buf,0,read);
+    /**
+     * Records a downloaded file that has the expected digest. Otherwise the file is removed, so
+     * that the next start downloads it again, and the wallet cannot continue.
+     */
+    private void checkDownload(Component parent, ParamsManifest manifest, ParallelDownloader.Download download,
+                               String sha256, String failedMessageKey) throws IOException {
+        if (sha256.equalsIgnoreCase(download.sha256)) {
+            manifest.record(download.target, download.sha256);
+            return;
         }
-        os.flush();
+
+        Log.error("Downloaded {0} has SHA-256 {1} instead of {2}", download.url, download.sha256, sha256);
+        download.target.delete();
+        JOptionPane.showMessageDialog(parent, langUtil.getString(failedMessageKey));
+        System.exit(-4);
     }
 
-    private static boolean checkSHA256(File provingKey, Component parent) throws IOException {
-        MessageDigest sha256;
-        try {
-            sha256 = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException impossible) {
-            throw new IOException(impossible);
+
+    /**
+     * Downloads the files concurrently, over several connections. An interrupted or cancelled
+     * download continues where it stopped on the next start.
+     */
+    private static void download(Component parent, List<ParallelDownloader.Download> downloads) throws IOException {
+        long total = 0;
+        for (ParallelDownloader.Download download : downloads) {
+            total += download.size;
         }
-        try (InputStream is = new BufferedInputStream(new FileInputStream(provingKey))) {
-            ProgressMonitorInputStream pmis = new ProgressMonitorInputStream(parent,
-                    LanguageUtil.instance().getString("proving.key.fetcher.option.pane.verify.progress.monitor.text"),
-                    is);
-            pmis.getProgressMonitor().setMaximum(PROVING_KEY_SIZE);
-            pmis.getProgressMonitor().setMillisToPopup(10);
-            DigestInputStream dis = new DigestInputStream(pmis, sha256);
-            byte [] temp = new byte[0x1 << 13];
-            while(dis.read(temp) >= 0);
-            byte [] digest = sha256.digest();
-            return SHA256.equalsIgnoreCase(Util.bytesToHex(digest));
+
+        // Progress in KB - the total of all files does not fit in an int
+        final ProgressMonitor monitor = new ProgressMonitor(parent,
+                LanguageUtil.instance().getString("proving.key.fetcher.option.pane.verify.progress.text"),
+                null, 0, (int)(total / 1024));
+        monitor.setMillisToDecideToPopup(10);
+        monitor.setMillisToPopup(10);
+        try {
+            new ParallelDownloader().download(downloads, new ParallelDownloader.ProgressListener() {
+                @Override
+                public boolean progress(long bytesDone, long bytesTotal) {
+                    monitor.setProgress((int)(bytesDone / 1024));
+                    return !monitor.isCanceled();
+                }
+            });
+        } finally {
+            monitor.close();
         }
     }
 
-    private static boolean checkSHA256SG(File sproutGroth, Component parent) throws IOException {
-        MessageDigest sha256;
-        try {
-            sha256 = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException impossible) {
-            throw new IOException(impossible);
+
+    /**
+     * Installs a parameter file bundled with the wallet, unless the file on disk already has the
+     * size and SHA-256 digest recorded at build time (keys/NAME.sha256, generated by build.xml).
+     * The new file is written next to the target and then renamed, so that a crash cannot leave
+     * a partial parameter file.
+     */
+    private static void installBundledFile(String resource, File target, ParamsManifest manifest) throws IOException {
+        URL url = ProvingKeyFetcher.class.getClassLoader().getResource(resource);
+        if (url == null) {
+            throw new IOException("Missing bundled resource " + resource);
         }
-        try (InputStream is = new BufferedInputStream(new FileInputStream(sproutGroth))) {
-            ProgressMonitorInputStream pmis = new ProgressMonitorInputStream(parent,
-                    LanguageUtil.instance().getString("sprout.groth.fetcher.option.pane.verify.progress.monitor.text"),
-                    is);
-            pmis.getProgressMonitor().setMaximum(SPROUT_GROTH_SIZE);
-            pmis.getProgressMonitor().setMillisToPopup(10);
-            DigestInputStream dis = new DigestInputStream(pmis, sha256);
-            byte [] temp = new byte[0x1 << 13];
-            while(dis.read(temp) >= 0);
-            byte [] digest = sha256.digest();
-            return SHA256SG.equalsIgnoreCase(Util.bytesToHex(digest));
+        URLConnection connection = url.openConnection();
+        long size = connection.getContentLengthLong();
+        String sha256 = readBundledDigest(resource);
+
+        if (target.isFile() && ((size < 0) || (target.length() == size))) {
+            ParamsManifest.STATUS status = manifest.getStatus(target, sha256);
+            if (status == ParamsManifest.STATUS.VERIFIED) {
+                return;
+            }
+            if ((status == ParamsManifest.STATUS.UNKNOWN) &&
+                sha256.equalsIgnoreCase(ParamsManifest.computeSHA256(target))) {
+                manifest.record(target, sha256);
+                return;
+            }
         }
+
+        Log.info("Installing bundled parameter file {0}", target.getAbsolutePath());
+        File tempFile = new File(target.getPath() + ".tmp");
+        try (InputStream is = connection.getInputStream();
+             FileOutputStream fos = new FileOutputStream(tempFile)) {
+            copy(is, fos);
+            fos.getFD().sync();
+        }
+        Util.replaceFile(tempFile, target);
+        manifest.record(target, sha256);
     }
 
-    private static boolean checkSHA256SS(File saplingSpend, Component parent) throws IOException {
+
+    // Digest recorded at build time, or calculated from the resource when running without one
+    private static String readBundledDigest(String resource) throws IOException {
+        InputStream is = ProvingKeyFetcher.class.getClassLoader().getResourceAsStream(resource + ".sha256");
+        if (is != null) {
+            try (Reader reader = new InputStreamReader(is, "ISO-8859-1")) {
+                String digest = new BufferedReader(reader).readLine();
+                if (digest != null) {
+                    return digest.trim().split("\\s+")[0];
+                }
+            }
+        }
+
         MessageDigest sha256;
         try {
             sha256 = MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException impossible) {
             throw new IOException(impossible);
         }
-        try (InputStream is = new BufferedInputStream(new FileInputStream(saplingSpend))) {
-            ProgressMonitorInputStream pmis = new ProgressMonitorInputStream(parent,
-                    LanguageUtil.instance().getString("sapling.spend.fetcher.option.pane.verify.progress.monitor.text"),
-                    is);
-            pmis.getProgressMonitor().setMaximum(SAPLING_SPEND_SIZE);
-            pmis.getProgressMonitor().setMillisToPopup(10);
-            DigestInputStream dis = new DigestInputStream(pmis, sha256);
+        try (InputStream data = new DigestInputStream(
+                ProvingKeyFetcher.class.getClassLoader().getResourceAsStream(resource), sha256)) {
             byte [] temp = new byte[0x1 << 13];
-            while(dis.read(temp) >= 0);
-            byte [] digest = sha256.digest();
-            return SHA256SS.equalsIgnoreCase(Util.bytesToHex(digest));
+            while (data.read(temp) >= 0);
         }
+        return Util.bytesToHex(sha256.digest());
+    }
+
+
+    private static void copy(InputStream is, OutputStream os) throws IOException {
+        byte[] buf = new byte[0x1 << 13];
+        int read;
+        while ((read = is.read(buf)) >- 0) {
+            os.write(buf,0,read);
+        }
+        os.flush();
     }
 }
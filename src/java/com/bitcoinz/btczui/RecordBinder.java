@@ -0,0 +1,234 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.eclipsesource.json.JsonHandler;
+import com.eclipsesource.json.JsonParser;
+
+
+/**
+ * Binds JSON RPC responses directly to typed records, driven by the events of JsonParser - no
+ * JsonObject/JsonArray tree is built. A response may be a single object or an array of objects,
+ * each object becomes one record. Members of nested objects are reported with dotted names, e.g.
+ * "error.message". Values inside nested arrays are ignored.
+ *
+ * Binders are stateless and may be shared between threads.
+ */
+public abstract class RecordBinder<R>
+{
+	/**
+	 * Creates an empty record with default values.
+	 */
+	protected abstract R newRecord();
+
+
+	/**
+	 * Sets one field of a record.
+	 *
+	 * @param record the record being bound.
+	 * @param name the member name - dotted for members of nested objects.
+	 * @param value the value - string content, number as in the input or true/false. Null for
+	 *        JSON null.
+	 */
+	protected abstract void bindField(R record, String name, String value);
+
+
+	/**
+	 * Parses a response into records.
+	 *
+	 * @param in the UTF-8 encoded JSON input.
+	 *
+	 * @return the records in the order of the input.
+	 *
+	 * @throws com.eclipsesource.json.ParseException if the input is not valid JSON.
+	 */
+	public List<R> parse(InputStream in)
+		throws IOException
+	{
+		BindingHandler handler = new BindingHandler();
+		new JsonParser(handler).parse(in);
+		return handler.records;
+	}
+
+
+	protected static long parseLong(String value, long defaultValue)
+	{
+		return (value != null) ? Long.parseLong(value) : defaultValue;
+	}
+
+
+	protected static int parseInt(String value, int defaultValue)
+	{
+		return (value != null) ? Integer.parseInt(value) : defaultValue;
+	}
+
+
+	protected static double parseDouble(String value, double defaultValue)
+	{
+		return (value != null) ? Double.parseDouble(value) : defaultValue;
+	}
+
+
+	protected static boolean parseBoolean(String value)
+	{
+		return "true".equals(value);
+	}
+
+
+	// Keeps track of the current record and member path
+	private class BindingHandler
+		extends JsonHandler<Object, Object>
+	{
+		List<R> records = new ArrayList<R>();
+
+		private R        record;
+		private boolean  topLevelArray;
+		private int      depth;
+		private String[] paths = new String[16]; // Per open container, null if not bound
+		private String   memberName;
+
+
+		@Override
+		public Object startArray()
+		{
+			if (this.depth == 0)
+			{
+				this.topLevelArray = true;
+			}
+			this.push(null);
+			return null;
+		}
+
+
+		@Override
+		public void endArray(Object array)
+		{
+			this.depth--;
+		}
+
+
+		@Override
+		public Object startObject()
+		{
+			String path = null;
+			if ((this.depth == 0) || ((this.depth == 1) && this.topLevelArray))
+			{
+				this.record = RecordBinder.this.newRecord();
+				path = "";
+			} else if (this.paths[this.depth - 1] != null)
+			{
+				path = this.qualifiedName();
+			}
+
+			this.push(path);
+			return null;
+		}
+
+
+		@Override
+		public void endObject(Object object)
+		{
+			this.depth--;
+			if ((this.depth == 0) || ((this.depth == 1) && this.topLevelArray))
+			{
+				this.records.add(this.record);
+				this.record = null;
+			}
+		}
+
+
+		@Override
+		public void endObjectName(Object object, String name)
+		{
+			this.memberName = name;
+		}
+
+
+		@Override
+		public void endString(String string)
+		{
+			this.bind(string);
+		}
+
+
+		@Override
+		public void endNumber(String string)
+		{
+			this.bind(string);
+		}
+
+
+		@Override
+		public void endBoolean(boolean value)
+		{
+			this.bind(value ? "true" : "false");
+		}
+
+
+		@Override
+		public void endNull()
+		{
+			this.bind(null);
+		}
+
+
+		private void bind(String value)
+		{
+			// Only members of the record object and its nested objects
+			if ((this.depth > 0) && (this.paths[this.depth - 1] != null))
+			{
+				RecordBinder.this.bindField(this.record, this.qualifiedName(), value);
+			}
+		}
+
+
+		private String qualifiedName()
+		{
+			String path = this.paths[this.depth - 1];
+			return path.isEmpty() ? this.memberName : (path + "." + this.memberName);
+		}
+
+
+		private void push(String path)
+		{
+			if (this.depth == this.paths.length)
+			{
+				String[] newPaths = new String[this.depth * 2];
+				System.arraycopy(this.paths, 0, newPaths, 0, this.depth);
+				this.paths = newPaths;
+			}
+			this.paths[this.depth++] = path;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Arrays;
+
+
+/**
+ * Keeps the latest resource samples of the daemon and of the wallet itself in a ring buffer of
+ * fixed size - the oldest sample is overwritten when the buffer is full. The values of a sample
+ * are stored per series in primitive arrays, a value that is not known is stored as NaN.
+ */
+public class ResourceHistory
+{
+	public static enum SERIES
+	{
+		DAEMON_CPU        ("bitcoinzd CPU",              "%",    "daemon_cpu_percent"),
+		DAEMON_RESIDENT   ("bitcoinzd resident memory",  "MB",   "daemon_resident_mb"),
+		DAEMON_VIRTUAL    ("bitcoinzd virtual memory",   "MB",   "daemon_virtual_mb"),
+		DAEMON_IO_READ    ("bitcoinzd disk read",        "KB/s", "daemon_read_kb_per_second"),
+		DAEMON_IO_WRITE   ("bitcoinzd disk write",       "KB/s", "daemon_write_kb_per_second"),
+		WALLET_CPU        ("Wallet CPU",                 "%",    "wallet_cpu_percent"),
+		WALLET_HEAP       ("Wallet heap used",           "MB",   "wallet_heap_used_mb"),
+		RPC_LATENCY       ("RPC latency",                "ms",   "rpc_latency_ms"),
+		BLOCK_HEIGHT      ("Block height",               "",     "block_height");
+
+		private String label;
+		private String unit;
+		private String csvName;
+
+		SERIES(String label, String unit, String csvName)
+		{
+			this.label = label;
+			this.unit = unit;
+			this.csvName = csvName;
+		}
+
+		public String getLabel()
+		{
+			return this.label;
+		}
+
+		public String getUnit()
+		{
+			return this.unit;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.label;
+		}
+	}
+
+
+	private long[] times;
+	private double[][] values;
+	private int next;   // Index of the next sample to write
+	private int count;  // Number of samples kept
+
+
+	/**
+	 * @param capacity the number of samples to keep - at least one.
+	 */
+	public ResourceHistory(int capacity)
+	{
+		capacity = Math.max(1, capacity);
+		this.times = new long[capacity];
+		this.values = new double[SERIES.values().length][capacity];
+		this.next = 0;
+		this.count = 0;
+	}
+
+
+	/**
+	 * Adds a sample, overwriting the oldest one if the history is full.
+	 *
+	 * @param time the time of the sample in milliseconds.
+	 * @param sample the values of the sample, indexed by the ordinal of the series.
+	 */
+	public synchronized void add(long time, double[] sample)
+	{
+		this.times[this.next] = time;
+		for (int i = 0; i < this.values.length; i++)
+		{
+			this.values[i][this.next] = sample[i];
+		}
+
+		this.next = (this.next + 1) % this.times.length;
+		this.count = Math.min(this.count + 1, this.times.length);
+	}
+
+
+	/**
+	 * @return the number of samples kept.
+	 */
+	public synchronized int size()
+	{
+		return this.count;
+	}
+
+
+	/**
+	 * @return the time of the oldest sample, or -1 if there is none.
+	 */
+	public synchronized long getOldestTime()
+	{
+		return (this.count > 0) ? this.times[this.oldestIndex()] : -1;
+	}
+
+
+	/**
+	 * Copies the values of a series, the oldest value first.
+	 *
+	 * @param series the series to copy.
+	 *
+	 * @return the values of the series, as many as there are samples.
+	 */
+	public synchronized double[] getValues(SERIES series)
+	{
+		double[] result = new double[this.count];
+		double[] source = this.values[series.ordinal()];
+		int oldest = this.oldestIndex();
+		int firstPart = Math.min(this.count, source.length - oldest);
+		System.arraycopy(source, oldest, result, 0, firstPart);
+		System.arraycopy(source, 0, result, firstPart, this.count - firstPart);
+		return result;
+	}
+
+
+	/**
+	 * Writes all samples as CSV, the oldest sample first. A header line names the columns, the
+	 * time is written in ISO-8601 format (UTC) and unknown values are left empty.
+	 *
+	 * @param out the writer to write to - not closed.
+	 */
+	public void writeCSV(Writer out)
+		throws IOException
+	{
+		long[] timesCopy;
+		double[][] valuesCopy = new double[SERIES.values().length][];
+		synchronized (this)
+		{
+			timesCopy = new long[this.count];
+			int oldest = this.oldestIndex();
+			for (int i = 0; i < this.count; i++)
+			{
+				timesCopy[i] = this.times[(oldest + i) % this.times.length];
+			}
+
+			for (SERIES series : SERIES.values())
+			{
+				valuesCopy[series.ordinal()] = this.getValues(series);
+			}
+		}
+
+		StringBuilder line = new StringBuilder("time");
+		for (SERIES series : SERIES.values())
+		{
+			line.append(',').append(series.csvName);
+		}
+		out.write(line.append("\r\n").toString());
+
+		for (int i = 0; i < timesCopy.length; i++)
+		{
+			line.setLength(0);
+			line.append(Instant.ofEpochMilli(timesCopy[i]));
+			for (double[] seriesValues : valuesCopy)
+			{
+				line.append(',');
+				double value = seriesValues[i];
+				if (!Double.isNaN(value))
+				{
+					// Whole numbers - like block heights - without fraction digits
+					if ((value == Math.rint(value)) && (Math.abs(value) < 1e15))
+					{
+						line.append((long)value);
+					} else
+					{
+						line.append(value);
+					}
+				}
+			}
+			out.write(line.append("\r\n").toString());
+		}
+	}
+
+
+	/**
+	 * @return an empty sample to fill in - all values unknown.
+	 */
+	public static double[] newSample()
+	{
+		double[] sample = new double[SERIES.values().length];
+		Arrays.fill(sample, Double.NaN);
+		return sample;
+	}
+
+
+	private int oldestIndex()
+	{
+		return (this.count < this.times.length) ? 0 : this.next;
+	}
+}
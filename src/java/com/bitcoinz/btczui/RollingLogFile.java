@@ -0,0 +1,378 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Log file that rotates by size and by month. The active file is named as before
+ * BitcoinZWallet_YYYY_M_debug.log. When it exceeds the maximum size it is renamed to a time
+ * stamped segment. When the month changes a new file is started. Closed segments are compressed
+ * with gzip on a background thread and the oldest ones are deleted to keep the number of files
+ * and their total size within limits.
+ *
+ * Not thread safe - it is used only by the log writer thread.
+ */
+public class RollingLogFile
+{
+	private static final String FILE_PREFIX = "BitcoinZWallet_";
+	private static final String FILE_SUFFIX = "_debug";
+
+	private final File directory;
+	private final long maxFileSize;
+	private final int  maxFiles;
+	private final long maxTotalSize;
+
+	private PrintStream      out;
+	private CountingStream   counter;
+	private volatile File    activeFile;
+	private long             periodEnd;
+
+	// Compression and cleanup run in the background
+	private final ExecutorService compressor = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "LogCompressor");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+
+	/**
+	 * Opens the log file for the current month.
+	 *
+	 * @param directory where log files are kept.
+	 * @param maxFileSize size in bytes after which the file is rotated.
+	 * @param maxFiles maximum number of closed segments kept.
+	 * @param maxTotalSize maximum total size in bytes of closed segments kept.
+	 */
+	public RollingLogFile(File directory, long maxFileSize, int maxFiles, long maxTotalSize)
+		throws IOException
+	{
+		this.directory = directory;
+		this.maxFileSize = maxFileSize;
+		this.maxFiles = maxFiles;
+		this.maxTotalSize = maxTotalSize;
+
+		this.open();
+
+		// Segments left from earlier runs (or previous months) are compressed too
+		this.compressor.submit(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				RollingLogFile.this.compressClosedSegments();
+			}
+		});
+	}
+
+
+	public void println(String text)
+	{
+		if ((System.currentTimeMillis() >= this.periodEnd) || (this.counter.count >= this.maxFileSize))
+		{
+			this.rotate();
+		}
+
+		if (this.out != null)
+		{
+			this.out.println(text);
+		}
+	}
+
+
+	public void flush()
+	{
+		if (this.out != null)
+		{
+			this.out.flush();
+		}
+	}
+
+
+	public void close()
+	{
+		if (this.out != null)
+		{
+			this.out.close();
+			this.out = null;
+		}
+	}
+
+
+	private void open()
+		throws IOException
+	{
+		Calendar now = Calendar.getInstance();
+		File file = new File(this.directory, FILE_PREFIX +
+		                     now.get(Calendar.YEAR) + "_" + (now.get(Calendar.MONTH) + 1) + FILE_SUFFIX + ".log");
+
+		Calendar nextMonth = Calendar.getInstance();
+		nextMonth.clear();
+		nextMonth.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), 1);
+		nextMonth.add(Calendar.MONTH, 1);
+
+		// Set first so that the background cleanup never touches the new file
+		this.activeFile = file;
+		this.counter = new CountingStream(
+			new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024), file.length());
+		this.out = new PrintStream(this.counter);
+		this.periodEnd = nextMonth.getTimeInMillis();
+	}
+
+
+	private void rotate()
+	{
+		File closedFile = this.activeFile;
+		boolean newPeriod = System.currentTimeMillis() >= this.periodEnd;
+		this.close();
+
+		File segment = closedFile;
+		if (!newPeriod)
+		{
+			// Same month - the active file name is reused so the full one gets a time stamp
+			String base = closedFile.getName().substring(0, closedFile.getName().length() - ".log".length()) +
+			              "_" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+			segment = new File(this.directory, base + ".log");
+			for (int i = 1; segment.exists() || new File(segment.getPath() + ".gz").exists(); i++)
+			{
+				segment = new File(this.directory, base + "_" + i + ".log");
+			}
+
+			if (!closedFile.renameTo(segment))
+			{
+				segment = null;
+				System.out.println("Log file could not be renamed: " + closedFile.getName());
+			}
+		}
+
+		try
+		{
+			this.open();
+		} catch (IOException ioe)
+		{
+			// Retried on the next message
+			this.periodEnd = 0;
+			System.out.println("Error in opening log file after rotation!!!");
+			ioe.printStackTrace();
+			return;
+		}
+
+		if (segment != null)
+		{
+			this.compressor.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					RollingLogFile.this.compressClosedSegments();
+				}
+			});
+		}
+	}
+
+
+	// Compresses all closed segments and then applies the retention limits
+	private void compressClosedSegments()
+	{
+		for (File file : this.listLogFiles())
+		{
+			String name = file.getName();
+			if (name.endsWith(".gz.tmp"))
+			{
+				file.delete(); // Interrupted compression - redone from the original
+			} else if (name.endsWith(".log") && !file.equals(this.activeFile))
+			{
+				try
+				{
+					gzip(file);
+				} catch (IOException ioe)
+				{
+					Log.warning("Log file {0} could not be compressed: {1}", name, ioe.getMessage());
+				}
+			}
+		}
+
+		this.applyRetention();
+	}
+
+
+	private void applyRetention()
+	{
+		List<File> segments = new ArrayList<File>();
+		for (File file : this.listLogFiles())
+		{
+			if ((!file.equals(this.activeFile)) && (!file.getName().endsWith(".tmp")))
+			{
+				segments.add(file);
+			}
+		}
+
+		// Newest first
+		Collections.sort(segments, new Comparator<File>()
+		{
+			@Override
+			public int compare(File f1, File f2)
+			{
+				return Long.compare(f2.lastModified(), f1.lastModified());
+			}
+		});
+
+		long totalSize = 0;
+		for (int i = 0; i < segments.size(); i++)
+		{
+			File segment = segments.get(i);
+			totalSize += segment.length();
+			if ((i >= this.maxFiles) || (totalSize > this.maxTotalSize))
+			{
+				if (segment.delete())
+				{
+					Log.info("Deleted old log file: {0}", segment.getName());
+				}
+			}
+		}
+	}
+
+
+	private List<File> listLogFiles()
+	{
+		File[] files = this.directory.listFiles();
+		if (files == null)
+		{
+			return Collections.emptyList();
+		}
+
+		List<File> logFiles = new ArrayList<File>();
+		for (File file : Arrays.asList(files))
+		{
+			String name = file.getName();
+			if (file.isFile() && name.startsWith(FILE_PREFIX) && name.contains(FILE_SUFFIX) &&
+				(name.endsWith(".log") || name.endsWith(".log.gz") || name.endsWith(".log.gz.tmp")))
+			{
+				logFiles.add(file);
+			}
+		}
+
+		return logFiles;
+	}
+
+
+	private static void gzip(File file)
+		throws IOException
+	{
+		File temp = new File(file.getPath() + ".gz.tmp");
+		File target = new File(file.getPath() + ".gz");
+
+		InputStream in = null;
+		OutputStream out = null;
+		try
+		{
+			in = new FileInputStream(file);
+			out = new GZIPOutputStream(new FileOutputStream(temp), 64 * 1024);
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) > 0)
+			{
+				out.write(buffer, 0, read);
+			}
+		} finally
+		{
+			if (in != null)
+			{
+				in.close();
+			}
+			if (out != null)
+			{
+				out.close();
+			}
+		}
+
+		long lastModified = file.lastModified();
+		if ((!temp.renameTo(target)) || (!file.delete()))
+		{
+			throw new IOException("Could not replace " + file.getName() + " with its compressed copy");
+		}
+		target.setLastModified(lastModified);
+	}
+
+
+	// Counts the bytes written to the log file
+	private static class CountingStream
+		extends FilterOutputStream
+	{
+		long count;
+
+		CountingStream(OutputStream out, long initialCount)
+		{
+			super(out);
+			this.count = initialCount;
+		}
+
+		@Override
+		public void write(int b)
+			throws IOException
+		{
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+			throws IOException
+		{
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+	}
+}
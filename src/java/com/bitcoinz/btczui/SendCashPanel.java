@@ -410,7 +410,6 @@ public class SendCashPanel
 			errorMessage = "Source address is invalid; it is too long.";
 		}
 
-		// TODO: full address validation
 		if ((destinationAddress == null) || (destinationAddress.trim().length() <= 0))
 		{
 			errorMessage = "Destination address is invalid; it is missing.";
@@ -422,28 +421,27 @@ public class SendCashPanel
 			errorMessage = "Destination address is invalid; it is too long.";
 		}
 
-		// Prevent accidental sending to non-ZEN addresses (which zend supports) probably because of
-		// ZClassic compatibility
-		if (!installationObserver.isOnTestNet())
+		// Prevent accidental sending to non-BTCZ addresses (which bitcoinzd supports) probably because of
+		// ZClassic compatibility, to addresses of the other network or with a typo (checksum mismatch)
+		if ((errorMessage == null) &&
+			(!AddressCodec.isValidForNetwork(destinationAddress.trim(), installationObserver.isOnTestNet())))
 		{
-			if (!(destinationAddress.startsWith("t") || destinationAddress.startsWith("z")))
-			{
-				Object[] options = { "OK" };
+			Object[] options = { "OK" };
 
-				JOptionPane.showOptionDialog(
-					SendCashPanel.this.getRootPane().getParent(),
-					"The destination address to send BTCZ to:\n" +
-					destinationAddress + "\n"+
-					"does not appear to be a valid BitcoinZ address. BTCZ addresses start with t or z!",
-					"Destination address is incorrect...",
-					JOptionPane.DEFAULT_OPTION,
-					JOptionPane.ERROR_MESSAGE,
-					null,
-					options,
-					options[0]);
-
-			    return; // Do not send anything!
-			}
+			JOptionPane.showOptionDialog(
+				SendCashPanel.this.getRootPane().getParent(),
+				"The destination address to send BTCZ to:\n" +
+				destinationAddress + "\n"+
+				"does not appear to be a valid BitcoinZ " + (installationObserver.isOnTestNet() ? "testnet " : "") +
+				"address. Please check it for typing errors!",
+				"Destination address is incorrect...",
+				JOptionPane.DEFAULT_OPTION,
+				JOptionPane.ERROR_MESSAGE,
+				null,
+				options,
+				options[0]);
+
+		    return; // Do not send anything!
 		}
 
 		if ((amount == null) || (amount.trim().length() <= 0))
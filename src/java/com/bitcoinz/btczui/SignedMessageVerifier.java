@@ -0,0 +1,364 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+
+/**
+ * Verifies messages signed with signmessage in process - the same check as the daemon's
+ * verifymessage. The public key is recovered from the compact signature and its hash is
+ * compared to the one in the T address.
+ *
+ * The ECKey of bitcoinj needs SpongyCastle and Guava that are not shipped with the wallet,
+ * so the secp256k1 arithmetic is done with BigInteger.
+ */
+public class SignedMessageVerifier
+{
+	// Prefix of the signed data - inherited from Zcash
+	private static final String MESSAGE_MAGIC = "Zcash Signed Message:\n";
+
+	// secp256k1 domain parameters
+	private static final BigInteger P = new BigInteger(
+		"FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+	private static final BigInteger N = new BigInteger(
+		"FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+	private static final BigInteger GX = new BigInteger(
+		"79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16);
+	private static final BigInteger GY = new BigInteger(
+		"483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16);
+	private static final BigInteger SEVEN = BigInteger.valueOf(7);
+
+	private static final ECPoint G = new ECPoint(GX, GY, BigInteger.ONE);
+
+
+	/**
+	 * Verifies a signed message.
+	 *
+	 * @param address T address of the signer.
+	 * @param signature Base64 compact signature as returned by signmessage.
+	 * @param message the message that was signed.
+	 *
+	 * @return true if the signature is valid for the address and message. False if the
+	 *         signature or address are malformed or the signature does not match.
+	 */
+	public static boolean verifyMessage(String address, String signature, String message)
+	{
+		byte[] addressHash = decodePubKeyHash(address);
+		if (addressHash == null)
+		{
+			return false;
+		}
+
+		byte[] pubKey = recoverPubKey(signature, message);
+		if (pubKey == null)
+		{
+			return false;
+		}
+
+		return Arrays.equals(addressHash, RIPEMD160.digest(sha256(pubKey)));
+	}
+
+
+	// Returns the public key hash in a P2PKH T address or null if it is not one
+	private static byte[] decodePubKeyHash(String address)
+	{
+		AddressCodec.AddressInfo info = AddressCodec.decode(address);
+		if ((info == null) || (info.getType() != AddressCodec.ADDRESS_TYPE.T_PUBKEY_HASH))
+		{
+			return null;
+		}
+
+		return info.getPayload();
+	}
+
+
+	// Returns the serialized public key that produced the signature or null if not possible
+	private static byte[] recoverPubKey(String signature, String message)
+	{
+		byte[] sig;
+		try
+		{
+			sig = java.util.Base64.getDecoder().decode(signature.trim());
+		} catch (IllegalArgumentException iae)
+		{
+			return null;
+		}
+
+		if (sig.length != 65)
+		{
+			return null;
+		}
+
+		int header = sig[0] & 0xff;
+		if ((header < 27) || (header > 34))
+		{
+			return null;
+		}
+
+		boolean compressed = header >= 31;
+		int recID = (header - 27) & 3;
+
+		BigInteger r = new BigInteger(1, Arrays.copyOfRange(sig, 1, 33));
+		BigInteger s = new BigInteger(1, Arrays.copyOfRange(sig, 33, 65));
+		if ((r.signum() == 0) || (r.compareTo(N) >= 0) || (s.signum() == 0) || (s.compareTo(N) >= 0))
+		{
+			return null;
+		}
+
+		// R is the point with x = r + (recID / 2) * n and the parity of y given by the recID
+		BigInteger x = r.add(N.multiply(BigInteger.valueOf(recID / 2)));
+		if (x.compareTo(P) >= 0)
+		{
+			return null;
+		}
+
+		BigInteger ySquare = x.pow(3).add(SEVEN).mod(P);
+		BigInteger y = ySquare.modPow(P.add(BigInteger.ONE).shiftRight(2), P);
+		if (!y.modPow(BigInteger.valueOf(2), P).equals(ySquare))
+		{
+			return null;
+		}
+
+		if (y.testBit(0) != ((recID & 1) == 1))
+		{
+			y = P.subtract(y);
+		}
+
+		// Q = r^-1 * (s * R - e * G)
+		BigInteger e = new BigInteger(1, formatMessageHash(message));
+		BigInteger rInv = r.modInverse(N);
+		BigInteger u1 = e.negate().multiply(rInv).mod(N);
+		BigInteger u2 = s.multiply(rInv).mod(N);
+
+		ECPoint q = ECPoint.multiplyAndAdd(G, u1, new ECPoint(x, y, BigInteger.ONE), u2);
+		if (q == null)
+		{
+			return null;
+		}
+
+		return q.serialize(compressed);
+	}
+
+
+	// Double SHA-256 of the magic prefix and message, each preceded by its length as varint
+	private static byte[] formatMessageHash(String message)
+	{
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] magic = MESSAGE_MAGIC.getBytes("UTF-8");
+			byte[] msg = message.getBytes("UTF-8");
+
+			writeVarInt(out, magic.length);
+			out.write(magic, 0, magic.length);
+			writeVarInt(out, msg.length);
+			out.write(msg, 0, msg.length);
+
+			return sha256(sha256(out.toByteArray()));
+		} catch (UnsupportedEncodingException impossible)
+		{
+			throw new RuntimeException(impossible);
+		}
+	}
+
+
+	private static void writeVarInt(ByteArrayOutputStream out, long value)
+	{
+		int size;
+		if (value < 0xfd)
+		{
+			out.write((int)value);
+			return;
+		} else if (value <= 0xffff)
+		{
+			out.write(0xfd);
+			size = 2;
+		} else
+		{
+			out.write(0xfe);
+			size = 4;
+		}
+
+		for (int i = 0; i < size; i++)
+		{
+			out.write((int)(value >>> (8 * i)) & 0xff);
+		}
+	}
+
+
+	private static byte[] sha256(byte[] input)
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256").digest(input);
+		} catch (NoSuchAlgorithmException impossible)
+		{
+			throw new RuntimeException(impossible);
+		}
+	}
+
+
+	/**
+	 * A secp256k1 point in Jacobian coordinates. Null stands for the point at infinity.
+	 */
+	private static class ECPoint
+	{
+		final BigInteger x, y, z;
+
+		ECPoint(BigInteger x, BigInteger y, BigInteger z)
+		{
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+
+		static ECPoint twice(ECPoint p)
+		{
+			if ((p == null) || (p.y.signum() == 0))
+			{
+				return null;
+			}
+
+			BigInteger a = p.x.multiply(p.x).mod(P);
+			BigInteger b = p.y.multiply(p.y).mod(P);
+			BigInteger c = b.multiply(b).mod(P);
+			BigInteger xb = p.x.add(b);
+			BigInteger d = xb.multiply(xb).subtract(a).subtract(c).shiftLeft(1).mod(P);
+			BigInteger e = a.multiply(BigInteger.valueOf(3)).mod(P);
+			BigInteger f = e.multiply(e).mod(P);
+
+			BigInteger x3 = f.subtract(d.shiftLeft(1)).mod(P);
+			BigInteger y3 = e.multiply(d.subtract(x3)).subtract(c.shiftLeft(3)).mod(P);
+			BigInteger z3 = p.y.multiply(p.z).shiftLeft(1).mod(P);
+
+			return new ECPoint(x3, y3, z3);
+		}
+
+
+		static ECPoint add(ECPoint p1, ECPoint p2)
+		{
+			if (p1 == null)
+			{
+				return p2;
+			} else if (p2 == null)
+			{
+				return p1;
+			}
+
+			BigInteger z1z1 = p1.z.multiply(p1.z).mod(P);
+			BigInteger z2z2 = p2.z.multiply(p2.z).mod(P);
+			BigInteger u1 = p1.x.multiply(z2z2).mod(P);
+			BigInteger u2 = p2.x.multiply(z1z1).mod(P);
+			BigInteger s1 = p1.y.multiply(p2.z).multiply(z2z2).mod(P);
+			BigInteger s2 = p2.y.multiply(p1.z).multiply(z1z1).mod(P);
+			BigInteger h = u2.subtract(u1).mod(P);
+			BigInteger r = s2.subtract(s1).mod(P);
+
+			if (h.signum() == 0)
+			{
+				return (r.signum() == 0) ? twice(p1) : null;
+			}
+
+			BigInteger hh = h.multiply(h).mod(P);
+			BigInteger hhh = h.multiply(hh).mod(P);
+			BigInteger v = u1.multiply(hh).mod(P);
+
+			BigInteger x3 = r.multiply(r).subtract(hhh).subtract(v.shiftLeft(1)).mod(P);
+			BigInteger y3 = r.multiply(v.subtract(x3)).subtract(s1.multiply(hhh)).mod(P);
+			BigInteger z3 = p1.z.multiply(p2.z).multiply(h).mod(P);
+
+			return new ECPoint(x3, y3, z3);
+		}
+
+
+		// k1 * p1 + k2 * p2 with a single doubling chain (Shamir's trick)
+		static ECPoint multiplyAndAdd(ECPoint p1, BigInteger k1, ECPoint p2, BigInteger k2)
+		{
+			ECPoint both = add(p1, p2);
+			ECPoint result = null;
+
+			for (int i = Math.max(k1.bitLength(), k2.bitLength()) - 1; i >= 0; i--)
+			{
+				result = twice(result);
+
+				boolean b1 = k1.testBit(i);
+				boolean b2 = k2.testBit(i);
+				if (b1 && b2)
+				{
+					result = add(result, both);
+				} else if (b1)
+				{
+					result = add(result, p1);
+				} else if (b2)
+				{
+					result = add(result, p2);
+				}
+			}
+
+			return result;
+		}
+
+
+		byte[] serialize(boolean compressed)
+		{
+			BigInteger zInv = this.z.modInverse(P);
+			BigInteger zInv2 = zInv.multiply(zInv).mod(P);
+			BigInteger affineX = this.x.multiply(zInv2).mod(P);
+			BigInteger affineY = this.y.multiply(zInv2).multiply(zInv).mod(P);
+
+			byte[] out = new byte[compressed ? 33 : 65];
+			copyUnsigned(affineX, out, 1);
+			if (compressed)
+			{
+				out[0] = (byte)(affineY.testBit(0) ? 0x03 : 0x02);
+			} else
+			{
+				out[0] = 0x04;
+				copyUnsigned(affineY, out, 33);
+			}
+
+			return out;
+		}
+
+
+		private static void copyUnsigned(BigInteger value, byte[] out, int offset)
+		{
+			byte[] bytes = value.toByteArray();
+			int length = Math.min(bytes.length, 32);
+			System.arraycopy(bytes, bytes.length - length, out, offset + 32 - length, length);
+		}
+	}
+}
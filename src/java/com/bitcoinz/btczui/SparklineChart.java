@@ -0,0 +1,174 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Path2D;
+import java.text.DecimalFormat;
+
+import javax.swing.JComponent;
+
+import com.bitcoinz.btczui.ResourceHistory.SERIES;
+
+
+/**
+ * Small line chart - without axes - of one series of a resource history. The line is scaled
+ * between the minimum and the maximum value of the series; these and the latest value are
+ * shown in the tool tip.
+ */
+public class SparklineChart
+	extends JComponent
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Color colorLine = new Color(40, 90, 170);
+	private static final Color colorLast = new Color(204, 51, 0);
+
+	private ResourceHistory history;
+	private SERIES series;
+
+
+	public SparklineChart(ResourceHistory history, SERIES series)
+	{
+		this.history = history;
+		this.series = series;
+		this.setPreferredSize(new Dimension(160, 36));
+		this.setToolTipText(series.getLabel());
+	}
+
+
+	public void setSeries(SERIES series)
+	{
+		this.series = series;
+		this.repaint();
+	}
+
+
+	// The tool tip is made when it is shown - so it is always up to date
+	@Override
+	public String getToolTipText(MouseEvent event)
+	{
+		double[] values = this.history.getValues(this.series);
+		double[] minMaxLast = getMinMaxLast(values);
+		if (minMaxLast == null)
+		{
+			return this.series.getLabel() + ": no data yet";
+		}
+
+		DecimalFormat df = new DecimalFormat("#,##0.#");
+		String unit = this.series.getUnit().isEmpty() ? "" : (" " + this.series.getUnit());
+		long minutes = (System.currentTimeMillis() - this.history.getOldestTime()) / 60000;
+		return "<html>" + this.series.getLabel() + ": <b>" + df.format(minMaxLast[2]) + unit + "</b><br/>" +
+		       "Last " + minutes + " min: " + df.format(minMaxLast[0]) + " - " + df.format(minMaxLast[1]) +
+		       unit + "</html>";
+	}
+
+
+	@Override
+	protected void paintComponent(Graphics graphics)
+	{
+		double[] values = this.history.getValues(this.series);
+		double[] minMaxLast = getMinMaxLast(values);
+		if (minMaxLast == null)
+		{
+			return;
+		}
+		double min = minMaxLast[0];
+		double max = minMaxLast[1];
+
+		Graphics2D g = (Graphics2D)graphics.create();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+		int w = this.getWidth() - 4;
+		int h = this.getHeight() - 4;
+		double range = (max > min) ? (max - min) : 1;
+		// One pixel per sample at most - the latest samples are shown if there are more
+		int first = Math.max(0, values.length - w);
+		double step = (values.length - first > 1) ? ((double)w / (values.length - first - 1)) : 0;
+
+		Path2D.Double line = new Path2D.Double();
+		boolean penDown = false;
+		boolean drawn = false;
+		double x = 0, y = 0;
+		for (int i = first; i < values.length; i++)
+		{
+			if (Double.isNaN(values[i]))
+			{
+				penDown = false;
+				continue;
+			}
+
+			x = 2 + (i - first) * step;
+			y = 2 + h - ((values[i] - min) / range) * h;
+			if (penDown)
+			{
+				line.lineTo(x, y);
+			} else
+			{
+				line.moveTo(x, y);
+				penDown = true;
+			}
+			drawn = true;
+		}
+
+		g.setColor(colorLine);
+		g.draw(line);
+		if (drawn)
+		{
+			g.setColor(colorLast);
+			g.fillOval((int)x - 2, (int)y - 2, 4, 4);
+		}
+		g.dispose();
+	}
+
+
+	// Returns the minimum, maximum and latest value - null if there are only gaps
+	private static double[] getMinMaxLast(double[] values)
+	{
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		double last = Double.NaN;
+		for (double value : values)
+		{
+			if (!Double.isNaN(value))
+			{
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+				last = value;
+			}
+		}
+
+		return Double.isNaN(last) ? null : new double[] { min, max, last };
+	}
+}
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
+import java.text.DecimalFormat;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -49,6 +50,11 @@ public class StartupProgressDialog extends JFrame {
     private static final int POLL_PERIOD = 1200;
     private static final int STARTUP_ERROR_CODE = -28;
 
+    // Backoff of the RPC readiness probe, and how long the RPC port may stay closed
+    private static final long MIN_PROBE_DELAY = 20;
+    private static final long MAX_PROBE_DELAY = 500;
+    private static final long RPC_CONNECT_TIMEOUT = 20 * 1000;
+
     private BorderLayout borderLayout1 = new BorderLayout();
     private JLabel imageLabel = new JLabel();
     private JLabel progressLabel = new JLabel();
@@ -59,6 +65,13 @@ public class StartupProgressDialog extends JFrame {
 
     private final BTCZClientCaller clientCaller;
 
+    private final PhaseTimer startupTimer = new PhaseTimer("Startup until bitcoinzd is ready");
+
+    // Follows the bitcoinzd log for progress details - null if that is not possible
+    private DebugLogTailer debugLog = null;
+    // What the log said until this time is from before this startup
+    private long debugLogBaseline;
+
     public StartupProgressDialog(BTCZClientCaller clientCaller){
 
         this.clientCaller = clientCaller;
@@ -98,21 +111,43 @@ public class StartupProgressDialog extends JFrame {
         // special handling of Windows/Mac OS app launch
       	OS_TYPE os = OSUtil.getOSType();
         if ((os == OS_TYPE.WINDOWS) || (os == OS_TYPE.MAC_OS)) {
+            startupTimer.startPhase("Proving parameters");
             ProvingKeyFetcher keyFetcher = new ProvingKeyFetcher();
             keyFetcher.fetchIfMissing(this);
         }
 
+        startupTimer.startPhase("Checking for bitcoinzd");
         Log.info("Splash: checking if bitcoinzd is already running...");
-        boolean shouldStartBTCZd = false;
+        DaemonReadinessProbe probe = null;
         try {
-            clientCaller.getDaemonRawRuntimeInfo();
-        } catch (IOException e) {
-        	// Relying on a general exception may be unreliable
-        	// may be thrown for an unexpected reason!!! - so message is checked
-        	if (e.getMessage() != null &&
-        		e.getMessage().toLowerCase(Locale.ROOT).contains("error: couldn't connect to server")) {
-        		shouldStartBTCZd = true;
-        	}
+            probe = DaemonReadinessProbe.fromConfiguration();
+        } catch (IOException | NumberFormatException e) {
+            Log.warning("Splash: cannot probe the RPC port of bitcoinzd directly: {0}", e.toString());
+        }
+
+        boolean shouldStartBTCZd = false;
+        boolean checked = false;
+        if (probe != null) {
+            try {
+                shouldStartBTCZd = (probe.probe().state == DaemonReadinessProbe.STATE.DOWN);
+                checked = true;
+            } catch (IOException e) {
+                Log.warning("Splash: RPC probe failed, using bitcoinz-cli: {0}", e.toString());
+                probe = null;
+            }
+        }
+
+        if (!checked) {
+            try {
+                clientCaller.getDaemonRawRuntimeInfo();
+            } catch (IOException e) {
+            	// Relying on a general exception may be unreliable
+            	// may be thrown for an unexpected reason!!! - so message is checked
+            	if (e.getMessage() != null &&
+            		e.getMessage().toLowerCase(Locale.ROOT).contains("error: couldn't connect to server")) {
+            		shouldStartBTCZd = true;
+            	}
+            }
         }
 
         if (!shouldStartBTCZd) {
@@ -124,35 +159,27 @@ public class StartupProgressDialog extends JFrame {
         	Log.info("Splash: bitcoinzd will be started...");
         }
 
+        try {
+            debugLog = new DebugLogTailer(DebugLogTailer.getDebugLogFile(clientCaller.isOnTestNet()));
+            debugLog.poll();
+            debugLogBaseline = System.currentTimeMillis();
+        } catch (IOException e) {
+            Log.warning("Splash: cannot follow the bitcoinzd log: {0}", e.toString());
+            debugLog = null;
+        }
+
+        if (shouldStartBTCZd) {
+            startupTimer.startPhase("Starting bitcoinzd");
+        }
         final Process daemonProcess =
         	shouldStartBTCZd ? clientCaller.startDaemon() : null;
 
-        Thread.sleep(POLL_PERIOD); // just a little extra
-
-        int iteration = 0;
-        while(true) {
-        	iteration++;
-            Thread.sleep(POLL_PERIOD);
-
-            JsonObject info = null;
-
-            try {
-            	info = clientCaller.getDaemonRawRuntimeInfo();
-            } catch (IOException e) {
-            	if (iteration > 4) {
-            		throw e;
-            	} else {
-            		continue;
-            	}
-            }
-
-            JsonValue code = info.get("code");
-            if (code == null || (code.asInt() != STARTUP_ERROR_CODE))
-                break;
-            final String message = info.getString("message", "???");
-            setProgressText(message);
+        boolean ready = (probe != null) && waitForReadiness(probe, daemonProcess);
 
+        if (!ready) {
+            waitForStartupWithCli();
         }
+        startupTimer.finish();
 
         // doDispose(); - will be called later by the main GUI
         if (daemonProcess != null) // Shutdown only if we started it
@@ -191,6 +218,140 @@ public class StartupProgressDialog extends JFrame {
 
     }
 
+    /**
+     * Probes the RPC port with a short exponential backoff until bitcoinzd is ready, showing
+     * its warm up messages.
+     *
+     * @return false if the probe cannot be used, e.g. because the credentials are not accepted.
+     */
+    private boolean waitForReadiness(DaemonReadinessProbe probe, Process daemonProcess)
+        throws IOException, InterruptedException {
+
+        startupTimer.startPhase("Waiting for RPC port");
+        long delay = MIN_PROBE_DELAY;
+        long downSince = System.currentTimeMillis();
+        while (true) {
+            DaemonReadinessProbe.Result result;
+            try {
+                result = probe.probe();
+            } catch (IOException e) {
+                Log.warning("Splash: RPC probe failed, using bitcoinz-cli: {0}", e.toString());
+                return false;
+            }
+
+            if (result.state == DaemonReadinessProbe.STATE.READY) {
+                setProgress(-1);
+                return true;
+            }
+
+            if (result.state == DaemonReadinessProbe.STATE.WARMING_UP) {
+                downSince = -1;
+                if (result.message != null) {
+                    startupTimer.startPhase(result.getPhase());
+                }
+                showProgress(result.message, result.percent);
+            } else {
+                showProgress(null, -1);
+
+                if ((daemonProcess != null) && !isAlive(daemonProcess)) {
+                    throw new IOException("bitcoinzd exited during startup with code " + daemonProcess.exitValue());
+                }
+
+                long now = System.currentTimeMillis();
+                downSince = (downSince < 0) ? now : downSince;
+                if (now - downSince > RPC_CONNECT_TIMEOUT) {
+                    throw new IOException("bitcoinzd does not accept RPC connections after " +
+                                          (RPC_CONNECT_TIMEOUT / 1000) + " seconds");
+                }
+            }
+
+            Thread.sleep(delay);
+            delay = Math.min(delay * 2, MAX_PROBE_DELAY);
+        }
+    }
+
+    /**
+     * Polls bitcoinzd with bitcoinz-cli until it is ready, showing its warm up messages. Used if
+     * the RPC port cannot be probed directly.
+     */
+    private void waitForStartupWithCli()
+        throws IOException, InterruptedException, WalletCallException {
+
+        Thread.sleep(POLL_PERIOD); // just a little extra
+
+        int iteration = 0;
+        while(true) {
+        	iteration++;
+            Thread.sleep(POLL_PERIOD);
+
+            JsonObject info = null;
+
+            try {
+            	info = clientCaller.getDaemonRawRuntimeInfo();
+            } catch (IOException e) {
+            	if (iteration > 4) {
+            		throw e;
+            	} else {
+            		continue;
+            	}
+            }
+
+            JsonValue code = info.get("code");
+            if (code == null || (code.asInt() != STARTUP_ERROR_CODE))
+                break;
+            final String message = info.getString("message", "???");
+            startupTimer.startPhase(message);
+            showProgress(message, -1);
+
+        }
+    }
+
+
+    /**
+     * Shows the warm up message of bitcoinzd, with the block and progress from its log if the
+     * log has been written to since the startup began. The log also tells what the daemon does
+     * while the RPC port is still closed.
+     */
+    private void showProgress(String message, int percent) {
+        DebugLogTailer.Status status = null;
+        if (debugLog != null) {
+            try {
+                status = debugLog.poll();
+            } catch (IOException e) {
+                Log.warning("Splash: cannot follow the bitcoinzd log any more: {0}", e.toString());
+                debugLog = null;
+            }
+        }
+
+        if ((message == null) && (status != null) && (status.activityUpdated > debugLogBaseline)) {
+            message = status.activity;
+        }
+
+        if ((status != null) && (status.tipUpdated > debugLogBaseline)) {
+            message = ((message != null) ? (message + " ") : "") + "Block " + status.height;
+            if (status.progress >= 0) {
+                message += " (" + new DecimalFormat("##0.##").format(status.progress * 100d) + "%)";
+                if (percent < 0) {
+                    percent = (int)(status.progress * 100d);
+                }
+            }
+        }
+
+        if (message != null) {
+            setProgressText(message);
+            setProgress(percent);
+        }
+    }
+
+
+    /**
+     * @return the durations of the startup phases, until bitcoinzd is ready.
+     */
+    public PhaseTimer getStartupTimer() {
+        return startupTimer;
+    }
+
+
     public void doDispose() {
         SwingUtilities.invokeLater(new Runnable() {
     			@Override
@@ -211,6 +372,20 @@ public class StartupProgressDialog extends JFrame {
     }
 
 
+    // Progress of the current phase in percent, -1 if unknown
+    public void setProgress(final int percent) {
+        SwingUtilities.invokeLater(new Runnable() {
+    			@Override
+    			public void run() {
+    				progressBar.setIndeterminate(percent < 0);
+    				if (percent >= 0) {
+    					progressBar.setValue(percent);
+    				}
+    			}
+	     });
+    }
+
+
     // Custom code - to allow JDK7 compilation.
     public boolean isAlive(Process p){
     	if (p == null){
@@ -0,0 +1,178 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.util.ArrayDeque;
+
+
+/**
+ * Estimates how long the daemon needs to catch up with the network, from the block heights
+ * it reports over time. The speed is measured over a sliding window, so that it follows the
+ * changes during a sync - old blocks are verified much faster than recent ones.
+ *
+ * The estimator does not call the daemon itself; it is fed with the heights gathered anyway.
+ */
+public class SyncEstimator
+{
+	// BitcoinZ targets a block every 2.5 minutes
+	private static final long BLOCK_INTERVAL_MILLIS = 150 * 1000;
+
+	private long windowMillis;
+	private ArrayDeque<long[]> samples = new ArrayDeque<long[]>(); // { time, height }
+
+
+	/**
+	 * @param windowMillis the time over which the speed is measured.
+	 */
+	public SyncEstimator(long windowMillis)
+	{
+		this.windowMillis = windowMillis;
+	}
+
+
+	/**
+	 * Adds the height of the chain at a time.
+	 *
+	 * @param timeMillis the time the height was obtained.
+	 * @param height the height of the chain.
+	 */
+	public synchronized void addSample(long timeMillis, int height)
+	{
+		// A lower height - e.g. after a reindex started - invalidates the earlier samples
+		if ((!this.samples.isEmpty()) && (height < this.samples.peekLast()[1]))
+		{
+			this.samples.clear();
+		}
+
+		this.samples.addLast(new long[] { timeMillis, height });
+		while ((this.samples.size() > 2) && (timeMillis - this.samples.peekFirst()[0] > this.windowMillis))
+		{
+			this.samples.removeFirst();
+		}
+	}
+
+
+	/**
+	 * @return the blocks added per second over the window, or NaN if not known yet.
+	 */
+	public synchronized double getBlocksPerSecond()
+	{
+		if (this.samples.size() < 2)
+		{
+			return Double.NaN;
+		}
+
+		long[] first = this.samples.peekFirst();
+		long[] last = this.samples.peekLast();
+		if (last[0] <= first[0])
+		{
+			return Double.NaN;
+		}
+
+		return (last[1] - first[1]) * 1000d / (last[0] - first[0]);
+	}
+
+
+	/**
+	 * Returns the seconds needed to reach a height at the current speed.
+	 *
+	 * @param targetHeight the height to reach.
+	 *
+	 * @return the seconds, 0 if the height is reached, or -1 if not known (no progress).
+	 */
+	public synchronized long getSecondsRemaining(int targetHeight)
+	{
+		if (this.samples.isEmpty())
+		{
+			return -1;
+		}
+
+		long remainingBlocks = targetHeight - this.samples.peekLast()[1];
+		if (remainingBlocks <= 0)
+		{
+			return 0;
+		}
+
+		double blocksPerSecond = this.getBlocksPerSecond();
+		if (Double.isNaN(blocksPerSecond) || (blocksPerSecond <= 0))
+		{
+			return -1;
+		}
+
+		return Math.round(remainingBlocks / blocksPerSecond);
+	}
+
+
+	/**
+	 * Estimates the height of the network chain - the headers the daemon knows, or the height
+	 * expected from the age of its tip if that is more.
+	 *
+	 * @param height the height of the local chain.
+	 * @param headerCount the headers known to the daemon.
+	 * @param tipTimeMillis the time of the local chain tip.
+	 * @param nowMillis the current time.
+	 *
+	 * @return the estimated height of the network chain.
+	 */
+	public static int estimateNetworkHeight(int height, int headerCount, long tipTimeMillis, long nowMillis)
+	{
+		long behind = Math.max(0, nowMillis - tipTimeMillis) / BLOCK_INTERVAL_MILLIS;
+		return (int)Math.max(headerCount, height + behind);
+	}
+
+
+	/**
+	 * Formats a duration for display - e.g. "2 h 05 min".
+	 *
+	 * @param seconds the duration.
+	 *
+	 * @return the formatted duration.
+	 */
+	public static String formatDuration(long seconds)
+	{
+		if (seconds < 60)
+		{
+			return "< 1 min";
+		}
+
+		long minutes = seconds / 60;
+		if (minutes < 60)
+		{
+			return minutes + " min";
+		}
+
+		long hours = minutes / 60;
+		if (hours < 48)
+		{
+			return hours + " h " + String.format("%02d", minutes % 60) + " min";
+		}
+
+		return (hours / 24) + " days " + (hours % 24) + " h";
+	}
+}
@@ -37,6 +37,9 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Method;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -274,6 +277,28 @@ public class Util
 	}
 
 
+	/**
+	 * Replaces a file with another one, in one step where the file system supports it. Readers
+	 * and a crash see either the old or the new file, never a partial one.
+	 *
+	 * @param source the new content, usually a temporary file in the same directory
+	 *
+	 * @param target the file to replace
+	 */
+	public static void replaceFile(File source, File target)
+		throws IOException
+	{
+		try
+		{
+			Files.move(source.toPath(), target.toPath(),
+			           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException amnse)
+		{
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+
 	public static JsonObject parseJsonObject(String json)
 		throws IOException
 	{
@@ -361,9 +386,15 @@ public class Util
 
 
 	// zc/zt - mainnet and testnet
-	// TODO: We need a much more precise criterion to distinguish T/Z adresses;
+	// Addresses that cannot be decoded are still classified by prefix.
 	public static boolean isZAddress(String address)
 	{
+		AddressCodec.AddressInfo info = AddressCodec.decode(address);
+		if (info != null)
+		{
+			return info.isZAddress();
+		}
+
 		return (address != null) &&
 			   (address.startsWith("zc") || address.startsWith("zt") || address.startsWith("zs")) &&
 			   (address.length() > 40);
@@ -48,8 +48,8 @@ public class WalletOperations
 	private BtczUI parent;
 	private JTabbedPane tabs;
 	private DashboardPanel dashboard;
-	private SendCashPanel  sendCash;
-	private AddressesPanel addresses;
+	private LazyTab<SendCashPanel>  sendCashTab;
+	private LazyTab<AddressesPanel> addressesTab;
 
 	private BTCZInstallationObserver installationObserver;
 	private BTCZClientCaller         clientCaller;
@@ -60,8 +60,8 @@ public class WalletOperations
 	public WalletOperations(BtczUI parent,
 			                JTabbedPane tabs,
 			                DashboardPanel dashboard,
-			                AddressesPanel addresses,
-			                SendCashPanel  sendCash,
+			                LazyTab<AddressesPanel> addressesTab,
+			                LazyTab<SendCashPanel>  sendCashTab,
 
 			                BTCZInstallationObserver installationObserver,
 			                BTCZClientCaller clientCaller,
@@ -72,8 +72,8 @@ public class WalletOperations
 		this.parent    = parent;
 		this.tabs      = tabs;
 		this.dashboard = dashboard;
-		this.addresses = addresses;
-		this.sendCash  = sendCash;
+		this.addressesTab = addressesTab;
+		this.sendCashTab  = sendCashTab;
 
 		this.installationObserver = installationObserver;
 		this.clientCaller = clientCaller;
@@ -114,7 +114,10 @@ public class WalletOperations
 				this.parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
 				this.dashboard.stopThreadsAndTimers();
-				this.sendCash.stopThreadsAndTimers();
+				if (this.sendCashTab.getIfCreated() != null)
+				{
+					this.sendCashTab.getIfCreated().stopThreadsAndTimers();
+				}
 
 				this.clientCaller.encryptWallet(pd.getPassword());
 
@@ -351,7 +354,9 @@ public class WalletOperations
 			return;
 		}
 
-		String address = this.addresses.getSelectedAddress();
+		// The tab is created when selected - unless that failed
+		AddressesPanel addresses = this.addressesTab.getIfCreated();
+		String address = (addresses != null) ? addresses.getSelectedAddress() : null;
 
 		if (address == null)
 		{
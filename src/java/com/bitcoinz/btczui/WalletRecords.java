@@ -0,0 +1,209 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+
+/**
+ * Typed records for wallet RPC responses. Numeric fields are parsed once when the response is
+ * read. Fields missing from a response keep their defaults - null, -1 or false.
+ */
+public class WalletRecords
+{
+	/**
+	 * One entry of listunspent.
+	 */
+	public static class UnspentOutput
+	{
+		public String  txid;
+		public int     vout = -1;
+		public String  address;
+		public double  amount;
+		public long    confirmations = -1;
+		public boolean spendable;
+
+		public static final RecordBinder<UnspentOutput> BINDER = new RecordBinder<UnspentOutput>()
+		{
+			@Override
+			protected UnspentOutput newRecord()
+			{
+				return new UnspentOutput();
+			}
+
+			@Override
+			protected void bindField(UnspentOutput record, String name, String value)
+			{
+				switch (name)
+				{
+					case "txid":          record.txid = value;                                 break;
+					case "vout":          record.vout = parseInt(value, -1);                   break;
+					case "address":       record.address = value;                              break;
+					case "amount":        record.amount = parseDouble(value, 0);               break;
+					case "confirmations": record.confirmations = parseLong(value, -1);         break;
+					case "spendable":     record.spendable = parseBoolean(value);              break;
+				}
+			}
+		};
+	}
+
+
+	/**
+	 * One note of z_listreceivedbyaddress.
+	 */
+	public static class ReceivedNote
+	{
+		public String  txid;
+		public double  amount;
+		public String  memo;
+		public int     outIndex = -1;   // Sapling notes
+		public int     jsIndex = -1;    // Sprout notes
+		public int     jsOutIndex = -1; // Sprout notes
+		public boolean change;
+		public long    blockHeight = -1;
+		public long    blockTime = -1;
+
+		public static final RecordBinder<ReceivedNote> BINDER = new RecordBinder<ReceivedNote>()
+		{
+			@Override
+			protected ReceivedNote newRecord()
+			{
+				return new ReceivedNote();
+			}
+
+			@Override
+			protected void bindField(ReceivedNote record, String name, String value)
+			{
+				switch (name)
+				{
+					case "txid":        record.txid = value;                           break;
+					case "amount":      record.amount = parseDouble(value, 0);         break;
+					case "memo":        record.memo = value;                           break;
+					case "outindex":    record.outIndex = parseInt(value, -1);         break;
+					case "jsindex":     record.jsIndex = parseInt(value, -1);          break;
+					case "jsoutindex":  record.jsOutIndex = parseInt(value, -1);       break;
+					case "change":      record.change = parseBoolean(value);           break;
+					case "blockheight": record.blockHeight = parseLong(value, -1);     break;
+					case "blocktime":   record.blockTime = parseLong(value, -1);       break;
+				}
+			}
+		};
+	}
+
+
+	/**
+	 * A wallet transaction - as returned by gettransaction or as an entry of listtransactions.
+	 */
+	public static class WalletTransaction
+	{
+		public String txid;
+		public String category;
+		public String address;
+		public double amount;
+		public double fee;
+		public long   confirmations = -1;
+		public long   time = -1;
+		public long   timeReceived = -1;
+		public long   blockTime = -1;
+		public String blockHash;
+
+		public static final RecordBinder<WalletTransaction> BINDER = new RecordBinder<WalletTransaction>()
+		{
+			@Override
+			protected WalletTransaction newRecord()
+			{
+				return new WalletTransaction();
+			}
+
+			@Override
+			protected void bindField(WalletTransaction record, String name, String value)
+			{
+				switch (name)
+				{
+					case "txid":          record.txid = value;                         break;
+					case "category":      record.category = value;                     break;
+					case "address":       record.address = value;                      break;
+					case "amount":        record.amount = parseDouble(value, 0);       break;
+					case "fee":           record.fee = parseDouble(value, 0);          break;
+					case "confirmations": record.confirmations = parseLong(value, -1); break;
+					case "time":          record.time = parseLong(value, -1);          break;
+					case "timereceived":  record.timeReceived = parseLong(value, -1);  break;
+					case "blocktime":     record.blockTime = parseLong(value, -1);     break;
+					case "blockhash":     record.blockHash = value;                    break;
+				}
+			}
+		};
+	}
+
+
+	/**
+	 * Status of an asynchronous operation - one entry of z_getoperationstatus.
+	 */
+	public static class OperationStatus
+	{
+		public String id;
+		public String status;
+		public String method;
+		public long   creationTime = -1;
+		public String resultTxID;
+		public int    errorCode;
+		public String errorMessage;
+
+		public static final RecordBinder<OperationStatus> BINDER = new RecordBinder<OperationStatus>()
+		{
+			@Override
+			protected OperationStatus newRecord()
+			{
+				return new OperationStatus();
+			}
+
+			@Override
+			protected void bindField(OperationStatus record, String name, String value)
+			{
+				switch (name)
+				{
+					case "id":            record.id = value;                           break;
+					case "status":        record.status = value;                       break;
+					case "method":        record.method = value;                       break;
+					case "creation_time": record.creationTime = parseLong(value, -1);  break;
+					case "result.txid":   record.resultTxID = value;                   break;
+					case "error.code":    record.errorCode = parseInt(value, 0);       break;
+					case "error.message": record.errorMessage = value;                 break;
+				}
+			}
+		};
+
+
+		@Override
+		public String toString()
+		{
+			return "{id: " + this.id + ", status: " + this.status +
+			       ((this.resultTxID != null) ? (", txid: " + this.resultTxID) : "") +
+			       ((this.errorMessage != null) ? (", error: " + this.errorCode + " " + this.errorMessage) : "") + "}";
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.bitcoinz.btczui.BTCZClientCaller.WalletBalance;
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.WriterConfig;
+
+
+/**
+ * The last known state of the wallet - balances, address table and transactions table - as
+ * shown when the wallet was last closed. It is loaded at startup so the dashboard may be
+ * shown at once instead of after the first (slow) gathering of live data, and it is stamped
+ * with the block height it was taken at, so the user can tell how old it is.
+ *
+ * The snapshot is stored as GZIP compressed JSON in the settings directory. The tables are
+ * stored as presented - with formatted amounts, dates and symbols.
+ */
+public class WalletSnapshot
+{
+	private static final String SNAPSHOT_FILE = "wallet-snapshot.json.gz";
+
+	private static final int VERSION = 1;
+
+	public boolean    testNet;
+	public int        blockHeight;
+	public long       savedAt;
+	public WalletBalance balance;
+	public String[][] addressBalances; // May be null - if the addresses tab was never opened
+	public int        addressBlockHeight; // The address table may be from an earlier snapshot
+	public String[][] transactions;
+
+
+	/**
+	 * Loads the snapshot saved last.
+	 *
+	 * @param testNet whether the wallet runs on test net - a snapshot of the other network is ignored.
+	 *
+	 * @return the snapshot or null if there is none or it may not be used.
+	 */
+	public static WalletSnapshot load(boolean testNet)
+	{
+		try
+		{
+			File snapshotFile = getSnapshotFile();
+			if (!snapshotFile.isFile())
+			{
+				return null;
+			}
+
+			long start = System.currentTimeMillis();
+			JsonObject json;
+			try (InputStream in = new GZIPInputStream(
+			         new BufferedInputStream(Files.newInputStream(snapshotFile.toPath()))))
+			{
+				json = Json.parse(in).asObject();
+			}
+
+			if ((json.getInt("version", -1) != VERSION) || (json.getBoolean("testnet", false) != testNet))
+			{
+				Log.info("Ignoring wallet snapshot {0} - version or network do not match", snapshotFile.getAbsolutePath());
+				return null;
+			}
+
+			WalletSnapshot snapshot = new WalletSnapshot();
+			snapshot.testNet         = testNet;
+			snapshot.blockHeight     = json.getInt("blockheight", -1);
+			snapshot.savedAt         = json.getLong("savedat", 0);
+			snapshot.balance         = balanceFromJson(json.get("balance").asObject());
+			snapshot.addressBalances = json.get("addresses").isNull() ? null : tableFromJson(json.get("addresses").asArray());
+			snapshot.addressBlockHeight = json.getInt("addressesblockheight", snapshot.blockHeight);
+			snapshot.transactions    = tableFromJson(json.get("transactions").asArray());
+
+			Log.info("Loaded wallet snapshot of {0} in {1} ms",
+			         snapshot.describe(), System.currentTimeMillis() - start);
+			return snapshot;
+		} catch (Exception e)
+		{
+			// Only costs waiting for the live data
+			Log.warning("Ignoring unreadable wallet snapshot: {0}", e.toString());
+			return null;
+		}
+	}
+
+
+	/**
+	 * Saves the snapshot, replacing the previous one in one step.
+	 */
+	public void save()
+		throws IOException
+	{
+		JsonObject json = new JsonObject();
+		json.set("version",      VERSION);
+		json.set("testnet",      this.testNet);
+		json.set("blockheight",  this.blockHeight);
+		json.set("savedat",      this.savedAt);
+		json.set("balance",      balanceToJson(this.balance));
+		json.set("addresses",    (this.addressBalances != null) ? tableToJson(this.addressBalances) : Json.NULL);
+		json.set("addressesblockheight", this.addressBlockHeight);
+		json.set("transactions", tableToJson(this.transactions));
+
+		File snapshotFile = getSnapshotFile();
+		File tempFile = new File(snapshotFile.getPath() + ".tmp");
+		try (FileOutputStream fileOut = new FileOutputStream(tempFile))
+		{
+			GZIPOutputStream gzipOut = new GZIPOutputStream(new BufferedOutputStream(fileOut));
+			json.writeTo(gzipOut, WriterConfig.MINIMAL);
+			gzipOut.finish();
+			gzipOut.flush();
+		}
+
+		Util.replaceFile(tempFile, snapshotFile);
+	}
+
+
+	/**
+	 * Returns a short description of the snapshot age, to be shown with stale data.
+	 *
+	 * @return e.g. "block 1234567".
+	 */
+	public String describe()
+	{
+		return describeBlockHeight(this.blockHeight);
+	}
+
+
+	/**
+	 * Returns a short description of the age of the address table, which may be older than
+	 * the rest of the snapshot.
+	 *
+	 * @return e.g. "block 1234567".
+	 */
+	public String describeAddresses()
+	{
+		return describeBlockHeight(this.addressBlockHeight);
+	}
+
+
+	private static String describeBlockHeight(int blockHeight)
+	{
+		return (blockHeight >= 0) ? ("block " + blockHeight) : "last run";
+	}
+
+
+	private static File getSnapshotFile()
+		throws IOException
+	{
+		return new File(OSUtil.getSettingsDirectory(), SNAPSHOT_FILE);
+	}
+
+
+	private static JsonObject balanceToJson(WalletBalance balance)
+	{
+		JsonObject json = new JsonObject();
+		json.set("transparent",            balance.transparentBalance);
+		json.set("private",                balance.privateBalance);
+		json.set("total",                  balance.totalBalance);
+		json.set("transparentUnconfirmed", balance.transparentUnconfirmedBalance);
+		json.set("privateUnconfirmed",     balance.privateUnconfirmedBalance);
+		json.set("totalUnconfirmed",       balance.totalUnconfirmedBalance);
+		return json;
+	}
+
+
+	private static WalletBalance balanceFromJson(JsonObject json)
+	{
+		WalletBalance balance = new WalletBalance();
+		balance.transparentBalance            = json.getDouble("transparent", 0);
+		balance.privateBalance                = json.getDouble("private", 0);
+		balance.totalBalance                  = json.getDouble("total", 0);
+		balance.transparentUnconfirmedBalance = json.getDouble("transparentUnconfirmed", 0);
+		balance.privateUnconfirmedBalance     = json.getDouble("privateUnconfirmed", 0);
+		balance.totalUnconfirmedBalance       = json.getDouble("totalUnconfirmed", 0);
+		return balance;
+	}
+
+
+	private static JsonArray tableToJson(String[][] table)
+	{
+		JsonArray rows = new JsonArray();
+		for (String[] row : table)
+		{
+			JsonArray cells = new JsonArray();
+			for (String cell : row)
+			{
+				cells.add(Json.value(cell));
+			}
+			rows.add(cells);
+		}
+
+		return rows;
+	}
+
+
+	private static String[][] tableFromJson(JsonArray rows)
+	{
+		String[][] table = new String[rows.size()][];
+		for (int i = 0; i < table.length; i++)
+		{
+			JsonArray cells = rows.get(i).asArray();
+			table[i] = new String[cells.size()];
+			for (int j = 0; j < table[i].length; j++)
+			{
+				JsonValue cell = cells.get(j);
+				table[i][j] = cell.isNull() ? null : cell.asString();
+			}
+		}
+
+		return table;
+	}
+}
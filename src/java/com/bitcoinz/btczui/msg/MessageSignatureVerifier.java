@@ -0,0 +1,221 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui.msg;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.bitcoinz.btczui.BTCZClientCaller;
+import com.bitcoinz.btczui.Log;
+import com.bitcoinz.btczui.SignedMessageVerifier;
+import com.bitcoinz.btczui.Util;
+import com.bitcoinz.btczui.BTCZClientCaller.WalletCallException;
+
+
+/**
+ * Verifies the signatures of received messages concurrently on a bounded pool of worker
+ * threads. Signatures are checked in process, with the daemon's verifymessage only used as a
+ * fallback. Results are cached by (address, signature, payload hash), so messages that are
+ * examined again in later gathering cycles are not verified a second time.
+ */
+public class MessageSignatureVerifier
+{
+	// Maximum number of verification results remembered
+	private static final int CACHE_SIZE = 5000;
+
+	private BTCZClientCaller clientCaller;
+
+	private ExecutorService workers;
+
+	private Map<String, Boolean> cachedResults;
+
+
+	/**
+	 * Creates a new verifier.
+	 *
+	 * @param clientCaller the caller used for verification.
+	 *
+	 * @param parallelism maximum number of signatures verified at the same time.
+	 */
+	public MessageSignatureVerifier(BTCZClientCaller clientCaller, int parallelism)
+	{
+		this.clientCaller = clientCaller;
+
+		final AtomicInteger threadCounter = new AtomicInteger(0);
+		this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism), new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "MessageSignatureVerifier-" + threadCounter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		this.cachedResults = new LinkedHashMap<String, Boolean>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest)
+			{
+				return this.size() > CACHE_SIZE;
+			}
+		};
+	}
+
+
+	/**
+	 * Starts the verification of a number of messages. Anonymous messages carry no signature
+	 * and get a null entry.
+	 *
+	 * @param messages the messages to verify.
+	 *
+	 * @return pending verification results in the same order as the messages.
+	 */
+	public List<Future<Boolean>> submit(List<Message> messages)
+		throws IOException
+	{
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+		for (final Message message : messages)
+		{
+			if (message.isAnonymous())
+			{
+				results.add(null);
+				continue;
+			}
+
+			final String payload = Util.encodeHexString(message.getMessage()).toUpperCase();
+			final String cacheKey = message.getFrom() + ":" + message.getSign() + ":" +
+			                        Util.encodeHexArray(Util.calculateSHA256Digest(payload.getBytes("UTF-8")));
+
+			results.add(this.workers.submit(new Callable<Boolean>()
+			{
+				@Override
+				public Boolean call()
+					throws WalletCallException, IOException, InterruptedException
+				{
+					Boolean result;
+					synchronized (MessageSignatureVerifier.this.cachedResults)
+					{
+						result = MessageSignatureVerifier.this.cachedResults.get(cacheKey);
+					}
+
+					if (result == null)
+					{
+						result = MessageSignatureVerifier.this.verify(message.getFrom(), message.getSign(), payload);
+
+						synchronized (MessageSignatureVerifier.this.cachedResults)
+						{
+							MessageSignatureVerifier.this.cachedResults.put(cacheKey, result);
+						}
+					}
+
+					return result;
+				}
+			}));
+		}
+
+		return results;
+	}
+
+
+	// Verifies in process first. A negative local result is confirmed by the daemon since it may
+	// also mean a signature the local verifier cannot check - invalid signatures are rare.
+	private boolean verify(String address, String signature, String payload)
+		throws WalletCallException, IOException, InterruptedException
+	{
+		if (SignedMessageVerifier.verifyMessage(address, signature, payload))
+		{
+			return true;
+		}
+
+		boolean result = this.clientCaller.verifyMessage(address, signature, payload);
+		if (result)
+		{
+			Log.warningOneTime("Signature from {0} was accepted by the daemon but not by the local verifier!",
+			                   address);
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Waits for a pending verification result.
+	 *
+	 * @param pending a result returned by {@link #submit(List)}.
+	 *
+	 * @return true if the signature is valid.
+	 */
+	public static boolean getResult(Future<Boolean> pending)
+		throws IOException, WalletCallException, InterruptedException
+	{
+		try
+		{
+			return pending.get();
+		} catch (ExecutionException ee)
+		{
+			Throwable cause = ee.getCause();
+			if (cause instanceof WalletCallException)
+			{
+				throw (WalletCallException)cause;
+			} else if (cause instanceof IOException)
+			{
+				throw (IOException)cause;
+			} else if (cause instanceof InterruptedException)
+			{
+				throw (InterruptedException)cause;
+			} else
+			{
+				throw new IOException(cause);
+			}
+		}
+	}
+
+
+	/**
+	 * Stops the worker threads. Pending verifications are abandoned.
+	 */
+	public void shutdown()
+	{
+		Log.info("Shutting down message signature verification workers...");
+		this.workers.shutdownNow();
+	}
+}
@@ -29,15 +29,13 @@
 package com.bitcoinz.btczui.msg;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.Reader;
-import java.io.Writer;
 
 import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.WriterConfig;
@@ -180,17 +178,17 @@ public class MessagingIdentity
 	public void writeToFile(File f)
 		throws IOException
 	{
-		Writer w = null;
+		OutputStream os = null;
 
 		try
 		{
-			w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), "UTF-8"));
-			w.write(this.toJSONObject(false).toString(WriterConfig.PRETTY_PRINT));
+			os = new FileOutputStream(f);
+			this.toJSONObject(false).writeTo(os, WriterConfig.PRETTY_PRINT);
 		} finally
 		{
-			if (w != null)
+			if (os != null)
 			{
-				w.close();
+				os.close();
 			}
 		}
 	}
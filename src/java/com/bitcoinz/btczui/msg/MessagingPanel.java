@@ -53,6 +53,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Future;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -130,6 +131,10 @@ public class MessagingPanel
 
 	private Object messageCollectionMutex = new Object();
 
+	private ReceivedMemoScanner memoScanner;
+
+	private MessageSignatureVerifier signatureVerifier;
+
 	private IPFSWrapper ipfs;
 
 
@@ -146,6 +151,8 @@ public class MessagingPanel
 		this.clientCaller     = clientCaller;
 		this.errorReporter    = errorReporter;
 		this.messagingStorage = new MessagingStorage();
+		this.memoScanner      = new ReceivedMemoScanner(clientCaller);
+		this.signatureVerifier = new MessageSignatureVerifier(clientCaller, 4);
 		this.ipfs             = new IPFSWrapper(parentFrame);
 
 		// Start building UI
@@ -273,6 +280,16 @@ public class MessagingPanel
 	}
 
 
+	@Override
+	public void stopThreadsAndTimers()
+	{
+		super.stopThreadsAndTimers();
+
+		this.signatureVerifier.shutdown();
+		this.memoScanner.shutdown();
+	}
+
+
 	// Handler for hyperlinks in case of group messaging
 	private class GroupLinkHandler
 		implements HyperlinkListener
@@ -1484,6 +1501,23 @@ public class MessagingPanel
 					return;
 				}
 
+				// The notes of the own identity and all groups are queried in parallel up front
+				MessagingIdentity ownIdentity = this.messagingStorage.getOwnIdentity();
+				if ((ownIdentity != null) && (!this.messagingStorage.getMessagingOptions().isMessagingDisabled()))
+				{
+					List<String> zAddresses = new ArrayList<String>();
+					zAddresses.add(ownIdentity.getSendreceiveaddress());
+					for (MessagingIdentity id : this.messagingStorage.getContactIdentities(false))
+					{
+						if (id.isGroup())
+						{
+							zAddresses.add(id.getSendreceiveaddress());
+						}
+					}
+
+					this.memoScanner.prefetch(zAddresses);
+				}
+
 				// Call it for the own identity
 				collectAndStoreNewReceivedMessages(null);
 
@@ -1583,60 +1617,19 @@ public class MessagingPanel
 
 			String ZAddress = (groupIdentity != null) ?
 			    groupIdentity.getSendreceiveaddress() : ownIdentity.getSendreceiveaddress();
-			// Get all known transactions received from the wallet
-			// TODO: there seems to be no way to limit the number of transactions returned!
-			JsonObject[] walletTransactions = this.clientCaller.getTransactionMessagingDataForZaddress(ZAddress);
+			// Get the messages received by the address that are not registered before. The wallet has no
+			// way to limit the number of transactions returned, so the scanner only decodes notes not seen
+			// in previous cycles.
+			List<ReceivedMemoScanner.ScannedMessage> newMessages =
+				this.memoScanner.scan(ZAddress, storedTransactionIDs);
 
-			// Filter the transactions to obtain only those that have memos parsable as JSON
-			// and being real messages. In addition only those remain that are not registered before
+			this.memoScanner.resolveTimes(newMessages);
 			List<Message> filteredMessages = new ArrayList<Message>();
-			for (JsonObject trans : walletTransactions)
+			for (ReceivedMemoScanner.ScannedMessage scanned : newMessages)
 			{
-				String memoHex = trans.getString("memo", "ERROR");
-				String transactionID = trans.getString("txid",  "ERROR");
-				if (!memoHex.equals("ERROR"))
-				{
-					String decodedMemo = Util.decodeHexMemo(memoHex);
-					JsonObject jsonMessage = null;
-					try
-					{
-						if (decodedMemo != null)
-						{
-							jsonMessage = Util.parseJsonObject(decodedMemo);
-						}
-					} catch (Exception ex)
-					{
-						Log.warningOneTime(
-							"Decoded memo is not parsable: {0}, due to {1}: {2}",
-							decodedMemo, ex.getClass().getName(), ex.getMessage());
-					}
-
-					if ((jsonMessage != null) &&
-					   ((jsonMessage.get("zenmsg") != null) &&
-					   (!storedTransactionIDs.contains(transactionID))))
-					{
-						JsonObject innerZenmsg = jsonMessage.get("zenmsg").asObject();
-						if (Message.isValidZENMessagingProtocolMessage(innerZenmsg))
-						{
-							// Finally test that the message has all attributes required
-							Message message = new Message(innerZenmsg);
-							// Set additional message attributes not available over the wire
-							message.setDirection(DIRECTION_TYPE.RECEIVED);
-							message.setTransactionID(transactionID);
-							String UNIXDate = this.clientCaller.getWalletTransactionTime(transactionID);
-							message.setTime(new Date(Long.valueOf(UNIXDate).longValue() * 1000L));
-							// TODO: additional sanity check that T/Z addresses are valid etc.
-							filteredMessages.add(message);
-						} else
-						{
-							// Warn of unexpected message content
-							Log.warningOneTime(
-								"Ignoring received mesage with invalid or incomplete content: {0}",
-								jsonMessage.toString());
-						}
-					}
-				} // End if (!memoHex.equals("ERROR"))
-			} // for (JsonObject trans : walletTransactions)
+				// TODO: additional sanity check that T/Z addresses are valid etc.
+				filteredMessages.add(scanned.createMessage());
+			}
 
 			//MessagingOptions msgOptions = this.messagingStorage.getMessagingOptions();
 
@@ -1644,13 +1637,15 @@ public class MessagingPanel
 			// who the sender is, verify it and store it
 			boolean bNewContactCreated = false;
 
-			// Loop for processing standard (not anonymous messages)
-			standard_message_loop:
+			// Standard (not anonymous) messages that are to be stored - others are skipped before
+			// their signatures are verified
+			List<Message> standardMessages = new ArrayList<Message>();
+			standard_message_filter:
 			for (Message message : filteredMessages)
 			{
 				if (message.isAnonymous())
 				{
-					continue standard_message_loop;
+					continue standard_message_filter;
 				}
 
 				MessagingIdentity contactID =
@@ -1666,7 +1661,7 @@ public class MessagingPanel
 					                       "Message: {0}, Ignored contact: {1}",
 					                       message.toJSONObject(false).toString(),
 					                       ignoredContact.toJSONObject(false).toString());
-						continue standard_message_loop;
+						continue standard_message_filter;
 					}
 				}
 
@@ -1677,9 +1672,22 @@ public class MessagingPanel
 					Log.warningOneTime(
 						"Message is from an unknown user, but options do not allow adding new users: {0}",
 						message.toJSONObject(false).toString());
-					continue standard_message_loop;
+					continue standard_message_filter;
 				}
 
+				standardMessages.add(message);
+			}
+
+			// Signatures are verified concurrently in the background while the loop below runs
+			List<Future<Boolean>> verifications = this.signatureVerifier.submit(standardMessages);
+
+			// Loop for processing standard (not anonymous messages)
+			for (int i = 0; i < standardMessages.size(); i++)
+			{
+				Message message = standardMessages.get(i);
+				MessagingIdentity contactID =
+					this.messagingStorage.getContactIdentityForSenderIDAddress(message.getFrom());
+
 				if ((groupIdentity == null) && (contactID == null))
 				{
 					// Update list of contacts with an unknown remote user ... to be updated later
@@ -1691,8 +1699,7 @@ public class MessagingPanel
 				}
 
 				// Verify the message signature
-				if (this.clientCaller.verifyMessage(message.getFrom(), message.getSign(),
-					                                Util.encodeHexString(message.getMessage()).toUpperCase()))
+				if (MessageSignatureVerifier.getResult(verifications.get(i)))
 				{
 					// Handle the special case of a messaging identity sent as payload - update identity then
 					if ((groupIdentity == null) && this.isZENIdentityMessage(message.getMessage()))
@@ -1710,7 +1717,7 @@ public class MessagingPanel
 
 			    this.messagingStorage.writeNewReceivedMessageForContact(
 			    		(groupIdentity == null) ? contactID : groupIdentity, message);
-			} // End for (Message message : filteredMessages)
+			} // End for (Message message : standardMessages)
 
 			// Loop for processing anonymous messages
 			anonymus_message_loop:
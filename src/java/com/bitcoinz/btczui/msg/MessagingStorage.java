@@ -29,7 +29,6 @@
 package com.bitcoinz.btczui.msg;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -38,7 +37,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -164,6 +162,25 @@ public class MessagingStorage
 
 	public MessagingOptions getMessagingOptions()
 		throws IOException
+	{
+		return readMessagingOptions(this.rootDir);
+	}
+
+
+	/**
+	 * Reads the messaging options without loading the contacts, when only the options are needed.
+	 *
+	 * @return the messaging options.
+	 */
+	public static MessagingOptions readMessagingOptions()
+		throws IOException
+	{
+		return readMessagingOptions(new File(OSUtil.getSettingsDirectory() + File.separator + "messaging"));
+	}
+
+
+	private static MessagingOptions readMessagingOptions(File rootDir)
+		throws IOException
 	{
 		File optionsFile = new File(rootDir, "messagingoptions.json");
 
@@ -771,10 +788,8 @@ public class MessagingStorage
 			OutputStream os = null;
 			try
 			{
-				os = new BufferedOutputStream(new FileOutputStream(ignoredIDsFile));
-				OutputStreamWriter osw = new OutputStreamWriter(os, "UTF-8");
-				ar.writeTo(osw, WriterConfig.PRETTY_PRINT);
-				osw.flush();
+				os = new FileOutputStream(ignoredIDsFile);
+				ar.writeTo(os, WriterConfig.MINIMAL);
 			} finally
 			{
 				if (os != null)
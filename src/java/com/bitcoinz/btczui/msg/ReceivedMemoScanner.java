@@ -0,0 +1,311 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.bitcoinz.btczui.msg;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.eclipsesource.json.JsonObject;
+import com.bitcoinz.btczui.AddressFanOutExecutor;
+import com.bitcoinz.btczui.BTCZClientCaller;
+import com.bitcoinz.btczui.Log;
+import com.bitcoinz.btczui.Util;
+import com.bitcoinz.btczui.WalletRecords.ReceivedNote;
+import com.bitcoinz.btczui.BTCZClientCaller.WalletCallException;
+
+
+/**
+ * Scans the notes received by messaging Z addresses incrementally. For every Z address a
+ * checkpoint is kept with the notes already examined and the highest block height reached.
+ * Decoded messages are only kept until they are stored - the storage holds them afterwards.
+ * The wallet still returns the full note history on every call, but memos are hex-decoded
+ * and JSON-parsed only once per note. Message times are obtained on demand in a single
+ * batched lookup and remembered afterwards.
+ */
+public class ReceivedMemoScanner
+{
+	/**
+	 * A received note whose memo is a valid messaging protocol message.
+	 */
+	public static class ScannedMessage
+	{
+		private String     transactionID;
+		private JsonObject zenmsg;
+		private long       time; // UNIX time in seconds
+
+		/**
+		 * Creates a new message instance with all attributes not available over the wire set.
+		 *
+		 * @return a new received message.
+		 */
+		public Message createMessage()
+		{
+			Message message = new Message(this.zenmsg);
+			message.setDirection(Message.DIRECTION_TYPE.RECEIVED);
+			message.setTransactionID(this.transactionID);
+			message.setTime(new Date(this.time * 1000L));
+			return message;
+		}
+	}
+
+
+	// Incremental scanning state for one Z address
+	private static class AddressCheckpoint
+	{
+		Set<String>          examinedNotes   = new HashSet<String>();
+		List<ScannedMessage> pendingMessages = new ArrayList<ScannedMessage>(); // Not stored yet
+		long                 blockHeight     = -1;
+	}
+
+
+	private BTCZClientCaller clientCaller;
+
+	private Map<String, AddressCheckpoint> checkpoints = new HashMap<String, AddressCheckpoint>();
+
+	// Notes queried in advance by prefetch() - used by the next scan of an address
+	private Map<String, List<ReceivedNote>> prefetchedNotes = new HashMap<String, List<ReceivedNote>>();
+
+	private AddressFanOutExecutor noteQueryExecutor = new AddressFanOutExecutor("MessagingNoteQuery");
+
+
+	public ReceivedMemoScanner(BTCZClientCaller clientCaller)
+	{
+		this.clientCaller = clientCaller;
+	}
+
+
+	/**
+	 * Queries the notes received by several Z addresses in parallel. The results are used by
+	 * the next {@link #scan(String)} of each address.
+	 *
+	 * @param zAddresses the messaging Z addresses to query.
+	 */
+	public void prefetch(List<String> zAddresses)
+		throws IOException, WalletCallException, InterruptedException
+	{
+		synchronized (this)
+		{
+			this.prefetchedNotes.clear();
+		}
+
+		List<List<ReceivedNote>> notes = this.noteQueryExecutor.execute(
+			zAddresses,
+			new AddressFanOutExecutor.AddressCall<List<ReceivedNote>>()
+			{
+				@Override
+				public List<ReceivedNote> call(String zAddress)
+					throws WalletCallException, IOException, InterruptedException
+				{
+					return ReceivedMemoScanner.this.clientCaller.getReceivedNotes(zAddress);
+				}
+			});
+
+		synchronized (this)
+		{
+			for (int i = 0; i < zAddresses.size(); i++)
+			{
+				this.prefetchedNotes.put(zAddresses.get(i), notes.get(i));
+			}
+		}
+	}
+
+
+	/**
+	 * Scans the notes received by a Z address. Only notes not seen in previous scans are decoded.
+	 *
+	 * @param zAddress the messaging Z address to scan.
+	 * @param storedTransactionIDs transactions of the messages already stored - these are
+	 *        not returned and no longer kept.
+	 *
+	 * @return the messages received by the address that are not stored yet, in order of
+	 *         first detection.
+	 */
+	public synchronized List<ScannedMessage> scan(String zAddress, Set<String> storedTransactionIDs)
+		throws IOException, WalletCallException, InterruptedException
+	{
+		AddressCheckpoint checkpoint = this.checkpoints.get(zAddress);
+		if (checkpoint == null)
+		{
+			checkpoint = new AddressCheckpoint();
+			this.checkpoints.put(zAddress, checkpoint);
+		}
+
+		List<ReceivedNote> walletTransactions = this.prefetchedNotes.remove(zAddress);
+		if (walletTransactions == null)
+		{
+			walletTransactions = this.clientCaller.getReceivedNotes(zAddress);
+		}
+
+		// The checkpoint is only updated once all new notes have been processed successfully
+		List<String> newNotes = new ArrayList<String>();
+		List<ScannedMessage> newMessages = new ArrayList<ScannedMessage>();
+		long blockHeight = checkpoint.blockHeight;
+
+		for (ReceivedNote trans : walletTransactions)
+		{
+			String noteKey = getNoteKey(trans);
+			if (checkpoint.examinedNotes.contains(noteKey))
+			{
+				continue;
+			}
+
+			newNotes.add(noteKey);
+			blockHeight = Math.max(blockHeight, trans.blockHeight);
+
+			String memoHex = trans.memo;
+			if (memoHex == null)
+			{
+				continue;
+			}
+
+			String decodedMemo = Util.decodeHexMemo(memoHex);
+			JsonObject jsonMessage = null;
+			try
+			{
+				if (decodedMemo != null)
+				{
+					jsonMessage = Util.parseJsonObject(decodedMemo);
+				}
+			} catch (Exception ex)
+			{
+				Log.warningOneTime(
+					"Decoded memo is not parsable: {0}, due to {1}: {2}",
+					decodedMemo, ex.getClass().getName(), ex.getMessage());
+			}
+
+			if ((jsonMessage == null) || (jsonMessage.get("zenmsg") == null))
+			{
+				continue;
+			}
+
+			JsonObject innerZenmsg = jsonMessage.get("zenmsg").asObject();
+			if (!Message.isValidZENMessagingProtocolMessage(innerZenmsg))
+			{
+				// Warn of unexpected message content
+				Log.warningOneTime(
+					"Ignoring received mesage with invalid or incomplete content: {0}",
+					jsonMessage.toString());
+				continue;
+			}
+
+			ScannedMessage scanned = new ScannedMessage();
+			scanned.transactionID = (trans.txid != null) ? trans.txid : "ERROR";
+			scanned.zenmsg = innerZenmsg;
+			// Newer daemons report the block time with the note - saves a lookup
+			scanned.time = trans.blockTime;
+			newMessages.add(scanned);
+		}
+
+		checkpoint.examinedNotes.addAll(newNotes);
+		checkpoint.pendingMessages.addAll(newMessages);
+		checkpoint.blockHeight = blockHeight;
+
+		// Messages that are skipped (e.g. of ignored contacts) remain pending and are offered again
+		Iterator<ScannedMessage> pending = checkpoint.pendingMessages.iterator();
+		while (pending.hasNext())
+		{
+			if (storedTransactionIDs.contains(pending.next().transactionID))
+			{
+				pending.remove();
+			}
+		}
+
+		if (!newNotes.isEmpty())
+		{
+			Log.info("Scanned {0} new notes for Z address {1}, {2} of them messages. Block height reached: {3}",
+				     newNotes.size(), zAddress, newMessages.size(), checkpoint.blockHeight);
+		}
+
+		return new ArrayList<ScannedMessage>(checkpoint.pendingMessages);
+	}
+
+
+	/**
+	 * Makes sure the times of the messages given are known. All missing times are obtained
+	 * in a single batched lookup. Must be called before {@link ScannedMessage#createMessage()}.
+	 *
+	 * @param messages the messages to resolve times for.
+	 */
+	public synchronized void resolveTimes(List<ScannedMessage> messages)
+		throws IOException, WalletCallException, InterruptedException
+	{
+		Set<String> txIDsWithoutTime = new HashSet<String>();
+		for (ScannedMessage scanned : messages)
+		{
+			if (scanned.time < 0)
+			{
+				txIDsWithoutTime.add(scanned.transactionID);
+			}
+		}
+
+		if (txIDsWithoutTime.isEmpty())
+		{
+			return;
+		}
+
+		Map<String, Long> times = this.clientCaller.getWalletTransactionTimes(txIDsWithoutTime);
+		for (ScannedMessage scanned : messages)
+		{
+			if (scanned.time < 0)
+			{
+				scanned.time = times.get(scanned.transactionID);
+			}
+		}
+	}
+
+
+	public void shutdown()
+	{
+		this.noteQueryExecutor.shutdown();
+	}
+
+
+	// A txid alone is not unique - a transaction may have several notes for the same address
+	private static String getNoteKey(ReceivedNote trans)
+	{
+		StringBuilder key = new StringBuilder((trans.txid != null) ? trans.txid : "ERROR");
+		for (int index : new int[] { trans.outIndex, trans.jsIndex, trans.jsOutIndex })
+		{
+			key.append(':');
+			if (index >= 0)
+			{
+				key.append(index);
+			}
+		}
+
+		return key.toString();
+	}
+}
@@ -22,6 +22,7 @@
 package com.eclipsesource.json;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 
 
@@ -72,6 +73,8 @@ public final class Json {
    */
   public static final JsonValue FALSE = new JsonLiteral("false");
 
+  private static volatile JsonStringCache stringCache;
+
   /**
    * Returns a JsonValue instance that represents the given <code>int</code> value.
    *
@@ -321,6 +324,61 @@ public final class Json {
     return handler.getValue();
   }
 
+  /**
+   * Parses the given UTF-8 encoded input as JSON. The input must contain a valid JSON value,
+   * optionally padded with whitespace.
+   *
+   * @param bytes
+   *          the UTF-8 encoded input, must be valid JSON
+   * @return a value that represents the parsed JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public static JsonValue parse(byte[] bytes) {
+    DefaultHandler handler = new DefaultHandler();
+    new JsonParser(handler).parse(bytes);
+    return handler.getValue();
+  }
+
+  /**
+   * Reads the entire UTF-8 encoded input from the given stream and parses it as JSON. The input
+   * must contain a valid JSON value, optionally padded with whitespace.
+   *
+   * @param stream
+   *          the stream to read the JSON value from
+   * @return a value that represents the parsed JSON
+   * @throws IOException
+   *           if an I/O error occurs in the stream
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public static JsonValue parse(InputStream stream) throws IOException {
+    DefaultHandler handler = new DefaultHandler();
+    new JsonParser(handler).parse(stream);
+    return handler.getValue();
+  }
+
+  /**
+   * Sets the string cache used by default by all parsers created afterwards, including those
+   * used by the <code>parse</code> methods. Parsing many documents of the same shape then reuses
+   * the string instances of member names and short repeated values.
+   *
+   * @param cache
+   *          the cache to use by default, or <code>null</code> for no cache
+   */
+  public static void setStringCache(JsonStringCache cache) {
+    stringCache = cache;
+  }
+
+  /**
+   * Returns the string cache used by default by new parsers.
+   *
+   * @return the default cache, or <code>null</code> if there is none
+   */
+  public static JsonStringCache getStringCache() {
+    return stringCache;
+  }
+
   private static String cutOffPointZero(String string) {
     if (string.endsWith(".0")) {
       return string.substring(0, string.length() - 2);
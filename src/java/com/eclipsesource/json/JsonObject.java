@@ -75,6 +75,9 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
   private final List<String> names;
   private final List<JsonValue> values;
   private transient HashIndexTable table;
+  private transient int modifications; // count of changes of the names
+  private transient JsonObject backing; // of an unmodifiable view, null otherwise
+  private transient int indexedModifications; // of the backing object when the index was built
 
   /**
    * Creates a new empty JsonObject.
@@ -102,6 +105,8 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
     if (unmodifiable) {
       names = Collections.unmodifiableList(object.names);
       values = Collections.unmodifiableList(object.values);
+      backing = object.backing != null ? object.backing : object;
+      indexedModifications = backing.modifications;
     } else {
       names = new ArrayList<String>(object.names);
       values = new ArrayList<JsonValue>(object.values);
@@ -331,9 +336,10 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
     if (value == null) {
       throw new NullPointerException("value is null");
     }
-    table.add(name, names.size());
     names.add(name);
     values.add(value);
+    table.add(name, names.size() - 1, names);
+    modifications++;
     return this;
   }
 
@@ -496,9 +502,10 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
     if (index != -1) {
       values.set(index, value);
     } else {
-      table.add(name, names.size());
       names.add(name);
       values.add(value);
+      table.add(name, names.size() - 1, names);
+      modifications++;
     }
     return this;
   }
@@ -518,9 +525,10 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
     }
     int index = indexOf(name);
     if (index != -1) {
-      table.remove(index);
       names.remove(index);
       values.remove(index);
+      table.remove(index, names);
+      modifications++;
     }
     return this;
   }
@@ -784,7 +792,16 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
   }
 
   int indexOf(String name) {
-    int index = table.get(name);
+    if (backing != null && backing.modifications != indexedModifications) {
+      // Names of an unmodifiable view were changed through the original object
+      table = new HashIndexTable();
+      updateHashIndex();
+      indexedModifications = backing.modifications;
+    }
+    if (table.isExact()) {
+      return table.get(name, names);
+    }
+    int index = table.get(name, names);
     if (index != -1 && name.equals(names.get(index))) {
       return index;
     }
@@ -800,10 +817,7 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
   }
 
   private void updateHashIndex() {
-    int size = names.size();
-    for (int i = 0; i < size; i++) {
-      table.add(names.get(i), i);
-    }
+    table.addAll(names);
   }
 
   /**
@@ -875,18 +889,47 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
 
   }
 
+  /**
+   * Index of member names. Small objects use a fixed table of 32 bytes that only caches indexes and
+   * may need a linear search. Once an object has more than EXACT_INDEX_THRESHOLD members an exact
+   * open addressing table is used, so lookups stay O(1) for large objects.
+   */
   static class HashIndexTable {
 
+    private static final int EXACT_INDEX_THRESHOLD = 32;
+
     private final byte[] hashTable = new byte[32]; // must be a power of two
+    private int[] exactTable; // index + 1 of the last member with a name, 0 stands for empty
+    private int exactUsed;
+    private int indexedSize;
 
     public HashIndexTable() {
     }
 
     public HashIndexTable(HashIndexTable original) {
       System.arraycopy(original.hashTable, 0, hashTable, 0, hashTable.length);
+      if (original.exactTable != null) {
+        exactTable = original.exactTable.clone();
+        exactUsed = original.exactUsed;
+      }
+      indexedSize = original.indexedSize;
     }
 
-    void add(String name, int index) {
+    boolean isExact() {
+      return exactTable != null;
+    }
+
+    // The name must already be in names at the given index
+    void add(String name, int index, List<String> names) {
+      indexedSize = names.size();
+      if (exactTable != null) {
+        addExact(name, index, names);
+        return;
+      }
+      if (indexedSize > EXACT_INDEX_THRESHOLD) {
+        rebuildExact(names);
+        return;
+      }
       int slot = hashSlotFor(name);
       if (index < 0xff) {
         // increment by 1, 0 stands for empty
@@ -896,26 +939,86 @@ public class JsonObject extends JsonValue implements Iterable<Member> {
       }
     }
 
-    void remove(int index) {
+    void addAll(List<String> names) {
+      indexedSize = names.size();
+      if (indexedSize > EXACT_INDEX_THRESHOLD) {
+        rebuildExact(names);
+        return;
+      }
+      for (int i = 0; i < indexedSize; i++) {
+        add(names.get(i), i, names);
+      }
+    }
+
+    // The member at the given index must already be removed from names
+    void remove(int index, List<String> names) {
+      indexedSize = names.size();
+      if (exactTable != null) {
+        rebuildExact(names);
+        return;
+      }
       for (int i = 0; i < hashTable.length; i++) {
-        if (hashTable[i] == index + 1) {
+        int entry = hashTable[i] & 0xff;
+        if (entry == index + 1) {
           hashTable[i] = 0;
-        } else if (hashTable[i] > index + 1) {
+        } else if (entry > index + 1) {
           hashTable[i]--;
         }
       }
     }
 
-    int get(Object name) {
+    int get(String name, List<String> names) {
+      if (exactTable != null) {
+        int mask = exactTable.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        int entry;
+        while ((entry = exactTable[slot]) != 0) {
+          if (name.equals(names.get(entry - 1))) {
+            return entry - 1;
+          }
+          slot = (slot + 1) & mask;
+        }
+        return -1;
+      }
       int slot = hashSlotFor(name);
       // subtract 1, 0 stands for empty
       return (hashTable[slot] & 0xff) - 1;
     }
 
+    private void addExact(String name, int index, List<String> names) {
+      int mask = exactTable.length - 1;
+      int slot = spread(name.hashCode()) & mask;
+      int entry;
+      while ((entry = exactTable[slot]) != 0) {
+        if (name.equals(names.get(entry - 1))) {
+          exactTable[slot] = index + 1; // Later members with the same name win
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      exactTable[slot] = index + 1;
+      if (++exactUsed * 2 > exactTable.length) {
+        rebuildExact(names);
+      }
+    }
+
+    private void rebuildExact(List<String> names) {
+      int size = names.size();
+      exactTable = new int[Math.max(64, Integer.highestOneBit(size * 4 - 1) << 1)];
+      exactUsed = 0;
+      for (int i = 0; i < size; i++) {
+        addExact(names.get(i), i, names);
+      }
+    }
+
     private int hashSlotFor(Object element) {
       return element.hashCode() & hashTable.length - 1;
     }
 
+    private static int spread(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+
   }
 
 }
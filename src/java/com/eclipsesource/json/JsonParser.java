@@ -22,8 +22,10 @@
 package com.eclipsesource.json;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 
 
 /**
@@ -34,6 +36,8 @@ public class JsonParser {
   private static final int MAX_NESTING_LEVEL = 1000;
   private static final int MIN_BUFFER_SIZE = 10;
   private static final int DEFAULT_BUFFER_SIZE = 1024;
+  // Larger for UTF-8 input, so that long hex strings rarely span two buffer fills
+  private static final int BYTE_INPUT_BUFFER_SIZE = 8192;
 
   private final JsonHandler<Object, Object> handler;
   private Reader reader;
@@ -45,6 +49,7 @@ public class JsonParser {
   private int lineOffset;
   private int current;
   private StringBuilder captureBuffer;
+  private JsonStringCache stringCache = Json.getStringCache();
   private int captureStart;
   private int nestingLevel;
 
@@ -73,6 +78,17 @@ public class JsonParser {
     handler.parser = this;
   }
 
+  /**
+   * Sets the cache used to reuse strings for member names and short values. By default the cache
+   * set with {@link Json#setStringCache(JsonStringCache)} is used, if any.
+   *
+   * @param cache
+   *          the cache to use, or <code>null</code> to create new strings for all names and values
+   */
+  public void setStringCache(JsonStringCache cache) {
+    stringCache = cache;
+  }
+
   /**
    * Parses the given input string. The input must contain a valid JSON value, optionally padded
    * with whitespace.
@@ -95,6 +111,74 @@ public class JsonParser {
     }
   }
 
+  /**
+   * Parses the given UTF-8 encoded input. The bytes are decoded directly into the input buffer, so
+   * no intermediate string is created. The input must contain a valid JSON value, optionally
+   * padded with whitespace.
+   *
+   * @param bytes
+   *          the UTF-8 encoded input, must be valid JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(byte[] bytes) {
+    if (bytes == null) {
+      throw new NullPointerException("bytes is null");
+    }
+    int bufferSize = Math.max(MIN_BUFFER_SIZE, Math.min(BYTE_INPUT_BUFFER_SIZE, bytes.length));
+    try {
+      parse(new Utf8Reader(bytes, 0, bytes.length), bufferSize);
+    } catch (IOException exception) {
+      // Utf8Reader does not throw IOException for byte arrays
+      throw new RuntimeException(exception);
+    }
+  }
+
+  /**
+   * Parses the remaining UTF-8 encoded content of the given buffer, which is consumed. The input
+   * must contain a valid JSON value, optionally padded with whitespace.
+   *
+   * @param buffer
+   *          the UTF-8 encoded input, must be valid JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("buffer is null");
+    }
+    int bufferSize = Math.max(MIN_BUFFER_SIZE, Math.min(BYTE_INPUT_BUFFER_SIZE, buffer.remaining()));
+    try {
+      parse(new Utf8Reader(buffer), bufferSize);
+    } catch (IOException exception) {
+      // Utf8Reader does not throw IOException for byte buffers
+      throw new RuntimeException(exception);
+    }
+  }
+
+  /**
+   * Reads the entire UTF-8 encoded input from the given stream and parses it as JSON. The bytes
+   * are decoded directly into the input buffer. The input must contain a valid JSON value,
+   * optionally padded with whitespace.
+   * <p>
+   * Bytes are read in chunks. Hence, wrapping the stream in an additional
+   * <code>BufferedInputStream</code> likely won't improve reading performance.
+   * </p>
+   *
+   * @param stream
+   *          the stream to read the input from
+   * @throws IOException
+   *           if an I/O error occurs in the stream
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(InputStream stream) throws IOException {
+    if (stream == null) {
+      throw new NullPointerException("stream is null");
+    }
+    parse(new Utf8Reader(stream), BYTE_INPUT_BUFFER_SIZE);
+  }
+
   /**
    * Reads the entire input from the given reader and parses it as JSON. The input must contain a
    * valid JSON value, optionally padded with whitespace.
@@ -258,7 +342,7 @@ public class JsonParser {
     if (current != '"') {
       throw expected("name");
     }
-    return readStringInternal();
+    return readStringInternal(true);
   }
 
   private void readNull() throws IOException {
@@ -297,10 +381,10 @@ public class JsonParser {
 
   private void readString() throws IOException {
     handler.startString();
-    handler.endString(readStringInternal());
+    handler.endString(readStringInternal(false));
   }
 
-  private String readStringInternal() throws IOException {
+  private String readStringInternal(boolean name) throws IOException {
     read();
     startCapture();
     while (current != '"') {
@@ -311,14 +395,34 @@ public class JsonParser {
       } else if (current < 0x20) {
         throw expected("valid string character");
       } else {
+        skipPlainStringChars();
         read();
       }
     }
-    String string = endCapture();
+    String string = endCapture(name);
     read();
     return string;
   }
 
+  // Fast path for long strings such as hex data - skips characters that need no checks in the
+  // current buffer without going through read()
+  private void skipPlainStringChars() {
+    int i = index;
+    char[] buf = buffer;
+    int end = fill;
+    while (i < end) {
+      char ch = buf[i];
+      if (ch == '"' || ch == '\\' || ch < 0x20) {
+        break;
+      }
+      i++;
+    }
+    if (i > index) {
+      index = i;
+      current = buf[i - 1];
+    }
+  }
+
   private void readEscape() throws IOException {
     read();
     switch (current) {
@@ -373,7 +477,7 @@ public class JsonParser {
     }
     readFraction();
     readExponent();
-    handler.endNumber(endCapture());
+    handler.endNumber(endCapture(false));
   }
 
   private boolean readFraction() throws IOException {
@@ -460,7 +564,7 @@ public class JsonParser {
     captureStart = -1;
   }
 
-  private String endCapture() {
+  private String endCapture(boolean name) {
     int start = captureStart;
     int end = index - 1;
     captureStart = -1;
@@ -470,6 +574,9 @@ public class JsonParser {
       captureBuffer.setLength(0);
       return captured;
     }
+    if (stringCache != null && (name || end - start <= stringCache.getMaxValueLength())) {
+      return stringCache.get(buffer, start, end - start);
+    }
     return new String(buffer, start, end - start);
   }
 
@@ -0,0 +1,650 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.eclipsesource.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+
+
+/**
+ * A pull parser for JSON text. Unlike {@link JsonParser}, which pushes all events to a handler,
+ * the caller asks for the next event with {@link #next()} and may skip values it is not interested
+ * in with {@link #skipValue()}. No object representation of the input is built, so single fields
+ * can be extracted from large inputs with little memory. Example:
+ *
+ * <pre>
+ * JsonPullParser parser = new JsonPullParser(reader);
+ * parser.next();                        // START_ARRAY
+ * while (parser.next() == Event.START_OBJECT) {
+ *   while (parser.next() == Event.NAME) {
+ *     if (parser.getString().equals("txid")) {
+ *       parser.next();
+ *       String txid = parser.getString();
+ *     } else {
+ *       parser.skipValue();
+ *     }
+ *   }                                   // END_OBJECT
+ * }                                     // END_ARRAY
+ * </pre>
+ *
+ * The grammar, error reporting and buffering are the same as in {@link JsonParser}.
+ */
+public class JsonPullParser {
+
+  /**
+   * Events returned by {@link JsonPullParser#next()}.
+   */
+  public enum Event {
+    START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, NAME, STRING, NUMBER, TRUE, FALSE, NULL,
+    END_DOCUMENT
+  }
+
+  private static final int MAX_NESTING_LEVEL = 1000;
+  private static final int MIN_BUFFER_SIZE = 10;
+  private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  // What is expected next
+  private static final int STATE_START = 0;
+  private static final int STATE_ARRAY_FIRST = 1;
+  private static final int STATE_ARRAY_NEXT = 2;
+  private static final int STATE_OBJECT_FIRST = 3;
+  private static final int STATE_OBJECT_NEXT = 4;
+  private static final int STATE_OBJECT_VALUE = 5;
+  private static final int STATE_END = 6;
+
+  private final Reader reader;
+  private final char[] buffer;
+  private int bufferOffset;
+  private int index;
+  private int fill;
+  private int line = 1;
+  private int lineOffset;
+  private int current;
+  private StringBuilder captureBuffer;
+  private JsonStringCache stringCache = Json.getStringCache();
+  private int captureStart = -1;
+
+  private boolean[] objectStack = new boolean[16]; // true for objects, false for arrays
+  private int depth;
+  private int state = STATE_START;
+  private Event event;
+  private String text;
+  private boolean skipping;
+
+  /**
+   * Creates a new pull parser for the given input string.
+   *
+   * @param string
+   *          the input string, must be valid JSON
+   */
+  public JsonPullParser(String string) {
+    this(new StringReader(string),
+         Math.max(MIN_BUFFER_SIZE, Math.min(DEFAULT_BUFFER_SIZE, string.length())));
+  }
+
+  /**
+   * Creates a new pull parser that reads UTF-8 encoded input from the given stream. The bytes are
+   * decoded directly into the input buffer.
+   *
+   * @param stream
+   *          the stream to read the input from
+   */
+  public JsonPullParser(InputStream stream) {
+    this(new Utf8Reader(stream), DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new pull parser that reads its input from the given reader. Characters are read in
+   * chunks into an input buffer, so the reader need not be buffered.
+   *
+   * @param reader
+   *          the reader to read the input from
+   */
+  public JsonPullParser(Reader reader) {
+    this(reader, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new pull parser that reads its input from the given reader, using an input buffer
+   * of the given size.
+   *
+   * @param reader
+   *          the reader to read the input from
+   * @param buffersize
+   *          the size of the input buffer in chars
+   */
+  public JsonPullParser(Reader reader, int buffersize) {
+    if (reader == null) {
+      throw new NullPointerException("reader is null");
+    }
+    if (buffersize <= 0) {
+      throw new IllegalArgumentException("buffersize is zero or negative");
+    }
+    this.reader = reader;
+    this.buffer = new char[buffersize];
+  }
+
+  /**
+   * Sets the cache used to reuse strings for member names and short values. By default the cache
+   * set with {@link Json#setStringCache(JsonStringCache)} is used, if any.
+   *
+   * @param cache
+   *          the cache to use, or <code>null</code> to create new strings for all names and values
+   */
+  public void setStringCache(JsonStringCache cache) {
+    stringCache = cache;
+  }
+
+  /**
+   * Reads the next event from the input. After the top level value has been read,
+   * <code>END_DOCUMENT</code> is returned.
+   *
+   * @return the next event
+   * @throws IOException
+   *           if an I/O error occurs in the reader
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public Event next() throws IOException {
+    if (state == STATE_START) {
+      read();
+    }
+    skipWhiteSpace();
+    switch (state) {
+      case STATE_START:
+      case STATE_OBJECT_VALUE:
+        return event = readValue();
+      case STATE_ARRAY_FIRST:
+        if (current == ']') {
+          return event = endContainer(Event.END_ARRAY);
+        }
+        return event = readValue();
+      case STATE_ARRAY_NEXT:
+        if (readChar(',')) {
+          skipWhiteSpace();
+          return event = readValue();
+        }
+        if (current == ']') {
+          return event = endContainer(Event.END_ARRAY);
+        }
+        throw expected("',' or ']'");
+      case STATE_OBJECT_FIRST:
+        if (current == '}') {
+          return event = endContainer(Event.END_OBJECT);
+        }
+        return event = readName();
+      case STATE_OBJECT_NEXT:
+        if (readChar(',')) {
+          skipWhiteSpace();
+          return event = readName();
+        }
+        if (current == '}') {
+          return event = endContainer(Event.END_OBJECT);
+        }
+        throw expected("',' or '}'");
+      default:
+        if (!isEndOfText()) {
+          throw error("Unexpected character");
+        }
+        return event = Event.END_DOCUMENT;
+    }
+  }
+
+  /**
+   * Skips a value without reporting its events. If the last event was <code>NAME</code>, the
+   * value of this member is skipped. If it was <code>START_OBJECT</code> or
+   * <code>START_ARRAY</code>, the rest of this object or array is skipped, up to and including
+   * its end. For all other events nothing is done.
+   *
+   * @throws IOException
+   *           if an I/O error occurs in the reader
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void skipValue() throws IOException {
+    skipping = true;
+    try {
+      if (event == Event.NAME) {
+        next();
+      }
+      if (event == Event.START_OBJECT || event == Event.START_ARRAY) {
+        int targetDepth = depth - 1;
+        while (depth > targetDepth) {
+          next();
+        }
+      }
+    } finally {
+      skipping = false;
+      text = null;
+    }
+  }
+
+  /**
+   * Returns the last event returned by {@link #next()}.
+   *
+   * @return the current event, or <code>null</code> before the first call to <code>next()</code>
+   */
+  public Event getEvent() {
+    return event;
+  }
+
+  /**
+   * Returns the text of the current <code>NAME</code>, <code>STRING</code> or
+   * <code>NUMBER</code> event. For numbers this is the number as it appears in the input.
+   *
+   * @return the text of the current event, or <code>null</code> for other events
+   */
+  public String getString() {
+    return text;
+  }
+
+  /**
+   * Returns the current <code>NUMBER</code> as a <code>long</code>.
+   *
+   * @return the current number
+   * @throws NumberFormatException
+   *           if the current event is not an integer number that fits into a <code>long</code>
+   */
+  public long getLong() {
+    if (event != Event.NUMBER) {
+      throw new NumberFormatException("Not a number: " + event);
+    }
+    return Long.parseLong(text, 10);
+  }
+
+  /**
+   * Returns the current <code>NUMBER</code> as a <code>double</code>.
+   *
+   * @return the current number
+   * @throws NumberFormatException
+   *           if the current event is not a number
+   */
+  public double getDouble() {
+    if (event != Event.NUMBER) {
+      throw new NumberFormatException("Not a number: " + event);
+    }
+    return Double.parseDouble(text);
+  }
+
+  /**
+   * Returns the nesting depth of the current position - 0 at the top level, 1 inside the top
+   * level object or array and so on.
+   *
+   * @return the current nesting depth
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns the current parser location.
+   *
+   * @return the current parser location
+   */
+  public Location getLocation() {
+    int offset = bufferOffset + index - 1;
+    int column = offset - lineOffset + 1;
+    return new Location(offset, line, column);
+  }
+
+  private Event readValue() throws IOException {
+    text = null;
+    switch (current) {
+      case 'n':
+        read();
+        readRequiredChar('u');
+        readRequiredChar('l');
+        readRequiredChar('l');
+        afterValue();
+        return Event.NULL;
+      case 't':
+        read();
+        readRequiredChar('r');
+        readRequiredChar('u');
+        readRequiredChar('e');
+        afterValue();
+        return Event.TRUE;
+      case 'f':
+        read();
+        readRequiredChar('a');
+        readRequiredChar('l');
+        readRequiredChar('s');
+        readRequiredChar('e');
+        afterValue();
+        return Event.FALSE;
+      case '"':
+        text = readStringInternal(false);
+        afterValue();
+        return Event.STRING;
+      case '[':
+        startContainer(false);
+        state = STATE_ARRAY_FIRST;
+        return Event.START_ARRAY;
+      case '{':
+        startContainer(true);
+        state = STATE_OBJECT_FIRST;
+        return Event.START_OBJECT;
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9':
+        text = readNumber();
+        afterValue();
+        return Event.NUMBER;
+      default:
+        throw expected("value");
+    }
+  }
+
+  private Event readName() throws IOException {
+    if (current != '"') {
+      throw expected("name");
+    }
+    text = readStringInternal(true);
+    skipWhiteSpace();
+    if (!readChar(':')) {
+      throw expected("':'");
+    }
+    state = STATE_OBJECT_VALUE;
+    return Event.NAME;
+  }
+
+  private void startContainer(boolean isObject) throws IOException {
+    read();
+    if (depth == MAX_NESTING_LEVEL) {
+      throw error("Nesting too deep");
+    }
+    if (depth == objectStack.length) {
+      boolean[] newStack = new boolean[depth * 2];
+      System.arraycopy(objectStack, 0, newStack, 0, depth);
+      objectStack = newStack;
+    }
+    objectStack[depth++] = isObject;
+  }
+
+  private Event endContainer(Event endEvent) throws IOException {
+    read();
+    depth--;
+    text = null;
+    afterValue();
+    return endEvent;
+  }
+
+  private void afterValue() {
+    if (depth == 0) {
+      state = STATE_END;
+    } else {
+      state = objectStack[depth - 1] ? STATE_OBJECT_NEXT : STATE_ARRAY_NEXT;
+    }
+  }
+
+  private void readRequiredChar(char ch) throws IOException {
+    if (!readChar(ch)) {
+      throw expected("'" + ch + "'");
+    }
+  }
+
+  private String readStringInternal(boolean name) throws IOException {
+    read();
+    if (skipping) {
+      while (current != '"') {
+        if (current == '\\') {
+          read();
+        } else if (current < 0x20) {
+          throw expected("valid string character");
+        } else {
+          skipPlainStringChars();
+        }
+        read();
+      }
+      read();
+      return null;
+    }
+    startCapture();
+    while (current != '"') {
+      if (current == '\\') {
+        pauseCapture();
+        readEscape();
+        startCapture();
+      } else if (current < 0x20) {
+        throw expected("valid string character");
+      } else {
+        skipPlainStringChars();
+        read();
+      }
+    }
+    String string = endCapture(name);
+    read();
+    return string;
+  }
+
+  // Fast path for long strings such as hex data - skips characters that need no checks in the
+  // current buffer without going through read()
+  private void skipPlainStringChars() {
+    int i = index;
+    char[] buf = buffer;
+    int end = fill;
+    while (i < end) {
+      char ch = buf[i];
+      if (ch == '"' || ch == '\\' || ch < 0x20) {
+        break;
+      }
+      i++;
+    }
+    if (i > index) {
+      index = i;
+      current = buf[i - 1];
+    }
+  }
+
+  private void readEscape() throws IOException {
+    read();
+    switch (current) {
+      case '"':
+      case '/':
+      case '\\':
+        captureBuffer.append((char)current);
+        break;
+      case 'b':
+        captureBuffer.append('\b');
+        break;
+      case 'f':
+        captureBuffer.append('\f');
+        break;
+      case 'n':
+        captureBuffer.append('\n');
+        break;
+      case 'r':
+        captureBuffer.append('\r');
+        break;
+      case 't':
+        captureBuffer.append('\t');
+        break;
+      case 'u':
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+          read();
+          if (!isHexDigit()) {
+            throw expected("hexadecimal digit");
+          }
+          value = (value << 4) | Character.digit(current, 16);
+        }
+        captureBuffer.append((char)value);
+        break;
+      default:
+        throw expected("valid escape sequence");
+    }
+    read();
+  }
+
+  private String readNumber() throws IOException {
+    if (!skipping) {
+      startCapture();
+    }
+    readChar('-');
+    int firstDigit = current;
+    if (!readDigit()) {
+      throw expected("digit");
+    }
+    if (firstDigit != '0') {
+      while (readDigit()) {
+      }
+    }
+    if (readChar('.')) {
+      if (!readDigit()) {
+        throw expected("digit");
+      }
+      while (readDigit()) {
+      }
+    }
+    if (readChar('e') || readChar('E')) {
+      if (!readChar('+')) {
+        readChar('-');
+      }
+      if (!readDigit()) {
+        throw expected("digit");
+      }
+      while (readDigit()) {
+      }
+    }
+    return skipping ? null : endCapture(false);
+  }
+
+  private boolean readChar(char ch) throws IOException {
+    if (current != ch) {
+      return false;
+    }
+    read();
+    return true;
+  }
+
+  private boolean readDigit() throws IOException {
+    if (!isDigit()) {
+      return false;
+    }
+    read();
+    return true;
+  }
+
+  private void skipWhiteSpace() throws IOException {
+    while (isWhiteSpace()) {
+      read();
+    }
+  }
+
+  private void read() throws IOException {
+    if (index == fill) {
+      if (captureStart != -1) {
+        captureBuffer.append(buffer, captureStart, fill - captureStart);
+        captureStart = 0;
+      }
+      bufferOffset += fill;
+      fill = reader.read(buffer, 0, buffer.length);
+      index = 0;
+      if (fill == -1) {
+        current = -1;
+        index++;
+        return;
+      }
+    }
+    if (current == '\n') {
+      line++;
+      lineOffset = bufferOffset + index;
+    }
+    current = buffer[index++];
+  }
+
+  private void startCapture() {
+    if (captureBuffer == null) {
+      captureBuffer = new StringBuilder();
+    }
+    captureStart = index - 1;
+  }
+
+  private void pauseCapture() {
+    int end = current == -1 ? index : index - 1;
+    captureBuffer.append(buffer, captureStart, end - captureStart);
+    captureStart = -1;
+  }
+
+  private String endCapture(boolean name) {
+    int start = captureStart;
+    int end = index - 1;
+    captureStart = -1;
+    if (captureBuffer.length() > 0) {
+      captureBuffer.append(buffer, start, end - start);
+      String captured = captureBuffer.toString();
+      captureBuffer.setLength(0);
+      return captured;
+    }
+    if (stringCache != null && (name || end - start <= stringCache.getMaxValueLength())) {
+      return stringCache.get(buffer, start, end - start);
+    }
+    return new String(buffer, start, end - start);
+  }
+
+  private ParseException expected(String expected) {
+    if (isEndOfText()) {
+      return error("Unexpected end of input");
+    }
+    return error("Expected " + expected);
+  }
+
+  private ParseException error(String message) {
+    return new ParseException(message, getLocation());
+  }
+
+  private boolean isWhiteSpace() {
+    return current == ' ' || current == '\t' || current == '\n' || current == '\r';
+  }
+
+  private boolean isDigit() {
+    return current >= '0' && current <= '9';
+  }
+
+  private boolean isHexDigit() {
+    return current >= '0' && current <= '9'
+        || current >= 'a' && current <= 'f'
+        || current >= 'A' && current <= 'F';
+  }
+
+  private boolean isEndOfText() {
+    return current == -1;
+  }
+
+}
@@ -0,0 +1,102 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.eclipsesource.json;
+
+
+/**
+ * A bounded cache that lets parsers reuse string instances for member names and short values
+ * that repeat across documents, like "txid", "amount", "receive" or addresses. The cache is a
+ * fixed size table indexed by the string hash, where a new string simply replaces the previous
+ * one in its slot. A hit costs no allocation at all.
+ * <p>
+ * A cache may be shared by parsers in several threads - concurrent updates can only cause misses.
+ * </p>
+ *
+ * @see Json#setStringCache(JsonStringCache)
+ */
+public final class JsonStringCache {
+
+  private final String[] strings;
+  private final int mask;
+  private final int maxValueLength;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param size
+   *          the number of slots, rounded up to a power of two
+   * @param maxValueLength
+   *          string and number values longer than this are not cached - names always are
+   */
+  public JsonStringCache(int size, int maxValueLength) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("size is zero or negative");
+    }
+    int tableSize = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+    strings = new String[tableSize];
+    mask = tableSize - 1;
+    this.maxValueLength = maxValueLength;
+  }
+
+  /**
+   * Returns the maximum length of values that are cached.
+   *
+   * @return the maximum value length
+   */
+  public int getMaxValueLength() {
+    return maxValueLength;
+  }
+
+  String get(char[] chars, int offset, int length) {
+    int hash = 0;
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    String cached = strings[slot];
+    if (cached != null && cached.length() == length && cached.hashCode() == hash
+        && matches(cached, chars, offset)) {
+      return cached;
+    }
+    String string = new String(chars, offset, length);
+    strings[slot] = string;
+    return string;
+  }
+
+  private static boolean matches(String string, char[] chars, int offset) {
+    for (int i = 0; i < string.length(); i++) {
+      if (string.charAt(i) != chars[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
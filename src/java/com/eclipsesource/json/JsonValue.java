@@ -22,10 +22,11 @@
 package com.eclipsesource.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 
 
 /**
@@ -432,9 +433,71 @@ public abstract class JsonValue implements Serializable {
     if (config == null) {
       throw new NullPointerException("config is null");
     }
-    WritingBuffer buffer = new WritingBuffer(writer, 128);
-    write(config.createWriter(buffer));
-    buffer.flush();
+    WritingBuffer buffer = WritingBuffer.acquire().to(writer);
+    try {
+      write(config.createWriter(buffer));
+      buffer.flush();
+    } finally {
+      buffer.release();
+    }
+  }
+
+  /**
+   * Writes the JSON representation of this value to the given stream as UTF-8 using the given
+   * formatting. The characters are encoded in a reused buffer, no intermediate string is created.
+   * The stream is neither flushed nor closed.
+   *
+   * @param output
+   *          the stream to write this value to
+   * @param config
+   *          a configuration that controls the formatting, {@link WriterConfig#MINIMAL} for a
+   *          compact form
+   * @throws IOException
+   *           if an I/O error occurs in the stream
+   */
+  public void writeTo(OutputStream output, WriterConfig config) throws IOException {
+    if (output == null) {
+      throw new NullPointerException("output is null");
+    }
+    if (config == null) {
+      throw new NullPointerException("config is null");
+    }
+    WritingBuffer buffer = WritingBuffer.acquire().to(output);
+    try {
+      write(config.createWriter(buffer));
+      buffer.flush();
+    } finally {
+      buffer.release();
+    }
+  }
+
+  /**
+   * Writes the JSON representation of this value to the given channel as UTF-8 using the given
+   * formatting. The characters are encoded in a reused buffer, no intermediate string is created.
+   * The channel is not closed.
+   *
+   * @param channel
+   *          the channel to write this value to
+   * @param config
+   *          a configuration that controls the formatting, {@link WriterConfig#MINIMAL} for a
+   *          compact form
+   * @throws IOException
+   *           if an I/O error occurs in the channel
+   */
+  public void writeTo(WritableByteChannel channel, WriterConfig config) throws IOException {
+    if (channel == null) {
+      throw new NullPointerException("channel is null");
+    }
+    if (config == null) {
+      throw new NullPointerException("config is null");
+    }
+    WritingBuffer buffer = WritingBuffer.acquire().to(channel);
+    try {
+      write(config.createWriter(buffer));
+      buffer.flush();
+    } finally {
+      buffer.release();
+    }
   }
 
   /**
@@ -457,14 +520,20 @@ public abstract class JsonValue implements Serializable {
    * @return a JSON string that represents this value
    */
   public String toString(WriterConfig config) {
-    StringWriter writer = new StringWriter();
+    if (config == null) {
+      throw new NullPointerException("config is null");
+    }
+    // Collected in the reused buffer of this thread, only the resulting string is allocated
+    WritingBuffer buffer = WritingBuffer.acquire();
     try {
-      writeTo(writer, config);
+      write(config.createWriter(buffer));
+      return buffer.toString();
     } catch (IOException exception) {
-      // StringWriter does not throw IOExceptions
+      // The buffer does not throw IOExceptions when collecting a string
       throw new RuntimeException(exception);
+    } finally {
+      buffer.release();
     }
-    return writer.toString();
   }
 
   /**
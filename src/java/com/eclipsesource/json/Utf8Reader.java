@@ -0,0 +1,214 @@
+/************************************************************************************************
+ *  ____ _____ ______ ___   __ _____  __   _ _____ _        __    _ _      _   _   _ ___
+ * | __ \_   _|_   __| __|/ _ \_   _||   \| |___  | \      / /_ _| | | ___| |_| | | |_ _|
+ * |____/ | |   | |/ /   / / \ \| |  | |\ | |  / / \ \ /\ / / _` | | |/ _ \ __| | | || |
+ * | ___ \| |_  | |\ \__ \ \_/ /| |_ | | \  | / /_  \ V  V / (_| | | |  __/ |_| |_| || |
+ * |_____/____| |_| \____|\___/_____||_|  \_|/____|  \_/\_/ \__,_|_|_|\___|\__|\___/|___|
+
+ * Copyright (c) 2017-2022 BitcoinZ team
+ * Copyright (c) 2016 Ivan Vaklinov <ivan@vaklinov.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ **********************************************************************************/
+package com.eclipsesource.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Decodes UTF-8 bytes directly into the char buffer of a parser. Runs of ASCII characters - the
+ * bulk of RPC responses with their hex strings - are copied in a tight loop. Malformed input is
+ * replaced by U+FFFD, as an <code>InputStreamReader</code> does.
+ */
+class Utf8Reader extends Reader {
+
+  private static final char REPLACEMENT = '\uFFFD';
+  private static final int STREAM_BUFFER_SIZE = 8192;
+
+  private final InputStream stream;   // null for byte array input
+  private final ByteBuffer byteBuffer; // non-null for direct/read-only buffers
+  private byte[] bytes;
+  private int position;
+  private int limit;
+  private boolean endOfInput;
+  private int pendingLowSurrogate = -1;
+
+  Utf8Reader(byte[] bytes, int offset, int length) {
+    this.stream = null;
+    this.byteBuffer = null;
+    this.bytes = bytes;
+    this.position = offset;
+    this.limit = offset + length;
+    this.endOfInput = true;
+  }
+
+  Utf8Reader(InputStream stream) {
+    this.stream = stream;
+    this.byteBuffer = null;
+    this.bytes = new byte[STREAM_BUFFER_SIZE];
+  }
+
+  Utf8Reader(ByteBuffer buffer) {
+    this.stream = null;
+    if (buffer.hasArray()) {
+      this.byteBuffer = null;
+      this.bytes = buffer.array();
+      this.position = buffer.arrayOffset() + buffer.position();
+      this.limit = buffer.arrayOffset() + buffer.limit();
+      this.endOfInput = true;
+      buffer.position(buffer.limit());
+    } else {
+      this.byteBuffer = buffer;
+      this.bytes = new byte[Math.min(STREAM_BUFFER_SIZE, Math.max(4, buffer.remaining()))];
+    }
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    int count = 0;
+    if (pendingLowSurrogate >= 0) {
+      cbuf[off + count++] = (char)pendingLowSurrogate;
+      pendingLowSurrogate = -1;
+    }
+    while (count < len) {
+      // ASCII fast path
+      byte[] in = bytes;
+      int pos = position;
+      int end = Math.min(limit, pos + len - count);
+      int out = off + count;
+      while (pos < end && in[pos] >= 0) {
+        cbuf[out++] = (char)in[pos++];
+      }
+      count = out - off;
+      position = pos;
+      if (count == len) {
+        break;
+      }
+      if (position == limit) {
+        if (!fill(0)) {
+          break;
+        }
+        continue;
+      }
+      // Multi byte sequence
+      int lead = in[position] & 0xff;
+      int needed = lead >= 0xf0 ? 4 : lead >= 0xe0 ? 3 : lead >= 0xc0 ? 2 : 1;
+      if (limit - position < needed && !endOfInput) {
+        fill(limit - position);
+        continue;
+      }
+      int codePoint = decode(lead, needed);
+      if (codePoint >= 0x10000) {
+        cbuf[off + count++] = Character.highSurrogate(codePoint);
+        if (count == len) {
+          pendingLowSurrogate = Character.lowSurrogate(codePoint);
+          break;
+        }
+        cbuf[off + count++] = Character.lowSurrogate(codePoint);
+      } else {
+        cbuf[off + count++] = (char)codePoint;
+      }
+    }
+    return count == 0 ? -1 : count;
+  }
+
+  // Decodes the sequence at the current position - on error one byte is consumed
+  private int decode(int lead, int needed) {
+    int available = limit - position;
+    int codePoint;
+    int minimum;
+    switch (needed) {
+      case 2:
+        codePoint = lead & 0x1f;
+        minimum = 0x80;
+        break;
+      case 3:
+        codePoint = lead & 0x0f;
+        minimum = 0x800;
+        break;
+      case 4:
+        codePoint = lead & 0x07;
+        minimum = 0x10000;
+        break;
+      default:
+        position++; // Stray continuation byte
+        return REPLACEMENT;
+    }
+    if (lead > 0xf4 || available < needed) {
+      position++;
+      return REPLACEMENT;
+    }
+    for (int i = 1; i < needed; i++) {
+      int b = bytes[position + i] & 0xff;
+      if ((b & 0xc0) != 0x80) {
+        position++;
+        return REPLACEMENT;
+      }
+      codePoint = (codePoint << 6) | (b & 0x3f);
+    }
+    if (codePoint < minimum || codePoint > 0x10ffff
+        || (codePoint >= 0xd800 && codePoint <= 0xdfff)) {
+      position++;
+      return REPLACEMENT;
+    }
+    position += needed;
+    return codePoint;
+  }
+
+  // Reads more input, keeping the given number of unconsumed bytes
+  private boolean fill(int keep) throws IOException {
+    if (endOfInput) {
+      return false;
+    }
+    System.arraycopy(bytes, position, bytes, 0, keep);
+    position = 0;
+    limit = keep;
+    int read;
+    if (stream != null) {
+      read = stream.read(bytes, keep, bytes.length - keep);
+    } else {
+      read = Math.min(byteBuffer.remaining(), bytes.length - keep);
+      if (read == 0) {
+        read = -1;
+      } else {
+        byteBuffer.get(bytes, keep, read);
+      }
+    }
+    if (read == -1) {
+      endOfInput = true;
+      return keep > 0;
+    }
+    limit += read;
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+}
@@ -22,46 +22,99 @@
 package com.eclipsesource.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 
 
 /**
- * A lightweight writing buffer to reduce the amount of write operations to be performed on the
- * underlying writer. This implementation is not thread-safe. It deliberately deviates from the
- * contract of Writer. In particular, it does not flush or close the wrapped writer nor does it
- * ensure that the wrapped writer is open.
+ * A buffer for the output of a {@link JsonWriter}. The characters are either collected in memory
+ * (for {@link JsonValue#toString()}), passed on to a writer, or encoded to UTF-8 and written to
+ * an output stream or a channel. One instance per thread is reused, so that writing a value does
+ * not allocate new buffers each time.
  */
 class WritingBuffer extends Writer {
 
-  private final Writer writer;
-  private final char[] buffer;
+  private static final int BUFFER_SIZE = 4096;
+  // Buffers that grew larger than this while collecting a string are not kept for the next call
+  private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+  private static final ThreadLocal<WritingBuffer> buffers = new ThreadLocal<WritingBuffer>();
+
+  private char[] buffer = new char[BUFFER_SIZE];
+  private byte[] bytes;
+  private ByteBuffer byteBuffer;
   private int fill = 0;
+  private boolean inUse;
+
+  private Writer writer;
+  private OutputStream output;
+  private WritableByteChannel channel;
 
-  WritingBuffer(Writer writer) {
-    this(writer, 16);
+  private WritingBuffer() {
   }
 
-  WritingBuffer(Writer writer, int bufferSize) {
+  /**
+   * Returns the buffer of the current thread, or a new one if it is already in use further up
+   * the call stack. The buffer must be given back with {@link #release()}.
+   */
+  static WritingBuffer acquire() {
+    WritingBuffer writingBuffer = buffers.get();
+    if (writingBuffer == null) {
+      writingBuffer = new WritingBuffer();
+      buffers.set(writingBuffer);
+    } else if (writingBuffer.inUse) {
+      writingBuffer = new WritingBuffer();
+    }
+    writingBuffer.inUse = true;
+    return writingBuffer;
+  }
+
+  WritingBuffer to(Writer writer) {
     this.writer = writer;
-    buffer = new char[bufferSize];
+    return this;
+  }
+
+  WritingBuffer to(OutputStream output) {
+    this.output = output;
+    return this;
+  }
+
+  WritingBuffer to(WritableByteChannel channel) {
+    this.channel = channel;
+    return this;
+  }
+
+  void release() {
+    writer = null;
+    output = null;
+    channel = null;
+    fill = 0;
+    if (buffer.length > MAX_RETAINED_SIZE) {
+      buffer = new char[BUFFER_SIZE];
+    }
+    inUse = false;
   }
 
   @Override
   public void write(int c) throws IOException {
-    if (fill > buffer.length - 1) {
-      flush();
+    if (fill == buffer.length) {
+      makeRoom(1);
     }
     buffer[fill++] = (char)c;
   }
 
   @Override
   public void write(char[] cbuf, int off, int len) throws IOException {
-    if (fill > buffer.length - len) {
-      flush();
-      if (len > buffer.length) {
-        writer.write(cbuf, off, len);
-        return;
-      }
+    while (len > buffer.length - fill) {
+      int count = buffer.length - fill;
+      System.arraycopy(cbuf, off, buffer, fill, count);
+      fill += count;
+      off += count;
+      len -= count;
+      makeRoom(len);
     }
     System.arraycopy(cbuf, off, buffer, fill, len);
     fill += len;
@@ -69,31 +122,116 @@ class WritingBuffer extends Writer {
 
   @Override
   public void write(String str, int off, int len) throws IOException {
-    if (fill > buffer.length - len) {
-      flush();
-      if (len > buffer.length) {
-        writer.write(str, off, len);
-        return;
-      }
+    while (len > buffer.length - fill) {
+      int count = buffer.length - fill;
+      str.getChars(off, off + count, buffer, fill);
+      fill += count;
+      off += count;
+      len -= count;
+      makeRoom(len);
     }
     str.getChars(off, off + len, buffer, fill);
     fill += len;
   }
 
   /**
-   * Flushes the internal buffer but does not flush the wrapped writer.
+   * Returns the characters collected so far, when no writer, stream or channel is set.
+   */
+  @Override
+  public String toString() {
+    return new String(buffer, 0, fill);
+  }
+
+  /**
+   * Writes out the internal buffer but does not flush the wrapped writer, stream or channel.
    */
   @Override
   public void flush() throws IOException {
-    writer.write(buffer, 0, fill);
-    fill = 0;
+    if (writer != null) {
+      writer.write(buffer, 0, fill);
+      fill = 0;
+    } else if (output != null || channel != null) {
+      writeBytes(fill);
+      fill = 0;
+    }
   }
 
   /**
-   * Does not close or flush the wrapped writer.
+   * Does not close or flush the wrapped writer, stream or channel.
    */
   @Override
   public void close() throws IOException {
   }
 
+  private void makeRoom(int required) throws IOException {
+    if (writer == null && output == null && channel == null) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, fill + required));
+    } else if (fill > 0 && Character.isHighSurrogate(buffer[fill - 1])) {
+      // Keep the first half of a surrogate pair, so that it is encoded together with the second
+      int count = fill - 1;
+      if (writer != null) {
+        writer.write(buffer, 0, count);
+      } else {
+        writeBytes(count);
+      }
+      buffer[0] = buffer[count];
+      fill = 1;
+    } else {
+      flush();
+    }
+  }
+
+  private void writeBytes(int count) throws IOException {
+    if (bytes == null) {
+      bytes = new byte[BUFFER_SIZE * 2];
+    }
+    int position = 0;
+    int limit = bytes.length - 4;
+    for (int index = 0; index < count; index++) {
+      if (position > limit) {
+        writeOut(position);
+        position = 0;
+      }
+      char ch = buffer[index];
+      if (ch < 0x80) {
+        bytes[position++] = (byte)ch;
+      } else if (ch < 0x800) {
+        bytes[position++] = (byte)(0xc0 | ch >> 6);
+        bytes[position++] = (byte)(0x80 | ch & 0x3f);
+      } else if (Character.isSurrogate(ch)) {
+        if (Character.isHighSurrogate(ch) && index + 1 < count
+            && Character.isLowSurrogate(buffer[index + 1])) {
+          int codePoint = Character.toCodePoint(ch, buffer[++index]);
+          bytes[position++] = (byte)(0xf0 | codePoint >> 18);
+          bytes[position++] = (byte)(0x80 | codePoint >> 12 & 0x3f);
+          bytes[position++] = (byte)(0x80 | codePoint >> 6 & 0x3f);
+          bytes[position++] = (byte)(0x80 | codePoint & 0x3f);
+        } else {
+          // Unpaired surrogate, replaced like String.getBytes() does
+          bytes[position++] = '?';
+        }
+      } else {
+        bytes[position++] = (byte)(0xe0 | ch >> 12);
+        bytes[position++] = (byte)(0x80 | ch >> 6 & 0x3f);
+        bytes[position++] = (byte)(0x80 | ch & 0x3f);
+      }
+    }
+    writeOut(position);
+  }
+
+  private void writeOut(int count) throws IOException {
+    if (output != null) {
+      output.write(bytes, 0, count);
+      return;
+    }
+    if (byteBuffer == null) {
+      byteBuffer = ByteBuffer.wrap(bytes);
+    }
+    byteBuffer.clear();
+    byteBuffer.limit(count);
+    while (byteBuffer.hasRemaining()) {
+      channel.write(byteBuffer);
+    }
+  }
+
 }